@@ -0,0 +1,438 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ Decomposes a hypergraph by balanced separators, in the style of BalancedGo and log-k-decomp. A subproblem is a set of
+ edges together with special edges, the vertex sets where it meets the rest of the tree. A separator is a set of at
+ most k edges that leaves no component with more than half of the edges and special edges of the subproblem. The
+ separator becomes a node, every component is solved on its own with its border to the node as a new special edge,
+ and the decompositions of the components are glued to the node where their special edge sits. The subproblems at
+ least halve at every level, so the recursion depth is logarithmic, and the components are independent, so they are
+ solved in parallel when a pool is given. The separators are walked with GetSets, and on a pool contiguous ranges of
+ their ranks are checked for balance concurrently.
+
+ The result is a generalized hypertree decomposition, flagged by isGeneralized: it may break the special condition, so
+ its width bounds the generalized hypertree width, which may be below the hypertree width HDSolver finds.
+ */
+public class BalancedSeparatorSolver<T extends Comparable<? super T>> implements DecompositionEngine<T> {
+
+    //the number of separator ranks checked by one task of the parallel search
+    private static final int RANKS_PER_TASK = 1 << 10;
+
+    private final CompactHypergraph<T> compact;
+
+    //null for the sequential search
+    private ForkJoinPool pool = null;
+
+    /**
+     A node of the decomposition being built. The links are not oriented, so a decomposition can be glued to its
+     parent at any of its nodes. guard is null for the placeholder standing for a special edge.
+     */
+    private static final class Node {
+        final IntBitSet bag;
+        final int[] guard;
+        final ArrayList<Node> neighbours = new ArrayList<>();
+
+        Node(IntBitSet bag, int[] guard){
+            this.bag = bag;
+            this.guard = guard;
+        }
+
+        void link(Node other){
+            this.neighbours.add(other);
+            other.neighbours.add(this);
+        }
+    }
+
+    /**
+     The border between a subproblem and the separator above it. leaf is set to its placeholder node once the
+     subproblem is solved.
+     */
+    private static final class Special {
+        final IntBitSet vertices;
+        Node leaf;
+
+        Special(IntBitSet vertices){
+            this.vertices = vertices;
+        }
+    }
+
+    public BalancedSeparatorSolver(Hypergraph<T> hypergraph){
+        this.compact = hypergraph.compact();
+    }
+
+    /**
+     Solves the components and searches the separators on the given pool. Passing null goes back to the sequential
+     search. Both return the same decomposition.
+     */
+    public void setParallelism(ForkJoinPool pool){
+        this.pool = pool;
+    }
+
+    @Override
+    public HypertreeDecomposition<T> findDecomposition(int width){
+        if(this.compact.numberOfEdges == 0){
+            return new HypertreeDecomposition<>(new ArrayList<>(), new ArrayList<>(), new int[0], true);
+        }
+
+        IntBitSet edges = Component.whole(this.compact).indicesOfEdges;
+        Set<SubproblemKey> failed = ConcurrentHashMap.newKeySet();
+        Node root;
+
+        if(this.pool == null){
+            root = decompose(edges, new ArrayList<>(), width, failed);
+        }
+        else{
+            root = this.pool.invoke(ForkJoinTask.adapt(() -> decompose(edges, new ArrayList<>(), width, failed)));
+        }
+
+        return root == null ? null : orient(root);
+    }
+
+    private Node decompose(IntBitSet edges, List<Special> specials, int width, Set<SubproblemKey> failed){
+        int size = edges.cardinality() + specials.size();
+
+        if(size <= 2){
+            return baseCase(edges, specials);
+        }
+
+        SubproblemKey key = key(edges, specials);
+
+        if(failed.contains(key)){
+            return null;
+        }
+
+        IntBitSet vertices = this.compact.verticesOfEdges(edges);
+
+        for(Special special : specials){
+            vertices.or(special.vertices);
+        }
+
+        //an edge missing the subproblem adds nothing to a bag, so only the edges touching it are separator candidates
+        IntBitSet touching = new IntBitSet(this.compact.numberOfEdges);
+
+        for(int vertex = vertices.nextSetBit(0); vertex >= 0; vertex = vertices.nextSetBit(vertex + 1)){
+            for(int incidence = this.compact.vertexOffsets[vertex]; incidence < this.compact.vertexOffsets[vertex + 1]; ++incidence){
+                touching.add(this.compact.vertexEdges[incidence]);
+            }
+        }
+
+        int[] domain = touching.toArray();
+        GetSets separators = new GetSets(1, width, domain);
+        long total = separators.total();
+
+        for(long rank = nextBalanced(domain, width, 0, total, edges, specials); rank >= 0; rank = nextBalanced(domain, width, rank + 1, total, edges, specials)){
+            separators.unrank(rank);
+
+            Node node = trySeparator(Arrays.copyOf(separators.current(), separators.size()), edges, specials, vertices, width, failed);
+
+            if(node != null){
+                return node;
+            }
+        }
+
+        failed.add(key);
+        return null;
+    }
+
+    private SubproblemKey key(IntBitSet edges, List<Special> specials){
+        IntBitSet[] parts = new IntBitSet[specials.size() + 1];
+
+        parts[0] = edges;
+
+        for(int index = 0; index < specials.size(); ++index){
+            parts[index + 1] = specials.get(index).vertices;
+        }
+
+        return new SubproblemKey(false, parts);
+    }
+
+    //at most two items, each one a node of its own, linked together
+    private Node baseCase(IntBitSet edges, List<Special> specials){
+        ArrayList<Node> nodes = new ArrayList<>();
+
+        for(int edge = edges.nextSetBit(0); edge >= 0; edge = edges.nextSetBit(edge + 1)){
+            nodes.add(new Node(this.compact.edgeSet(edge), new int[]{edge}));
+        }
+
+        for(Special special : specials){
+            special.leaf = new Node(special.vertices, null);
+            nodes.add(special.leaf);
+        }
+
+        for(int index = 1; index < nodes.size(); ++index){
+            nodes.get(index - 1).link(nodes.get(index));
+        }
+
+        return nodes.get(0);
+    }
+
+    /**
+     The smallest rank from from on whose separator is balanced, or -1 if there is none. On a pool, windows of
+     consecutive ranges are checked concurrently and the smallest hit of the window wins, so the answer does not
+     depend on the pool.
+     */
+    private long nextBalanced(int[] domain, int width, long from, long total, IntBitSet edges, List<Special> specials){
+        if(this.pool == null){
+            return firstBalanced(domain, width, from, total, edges, specials);
+        }
+
+        int tasks = this.pool.getParallelism();
+
+        for(long start = from; start < total; start += (long) tasks * RANKS_PER_TASK){
+            ArrayList<RecursiveTask<Long>> window = new ArrayList<>();
+
+            for(int task = 0; task < tasks; ++task){
+                long begin = start + (long) task * RANKS_PER_TASK;
+                long end = Math.min(total, begin + RANKS_PER_TASK);
+
+                if(begin >= total){
+                    break;
+                }
+
+                window.add(new RecursiveTask<Long>(){
+                    @Override
+                    protected Long compute(){
+                        return firstBalanced(domain, width, begin, end, edges, specials);
+                    }
+                });
+            }
+
+            ForkJoinTask.invokeAll(window);
+
+            for(RecursiveTask<Long> task : window){
+                if(task.join() >= 0){
+                    return task.join();
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private long firstBalanced(int[] domain, int width, long from, long to, IntBitSet edges, List<Special> specials){
+        GetSets separators = new GetSets(1, width, domain);
+        int size = edges.cardinality() + specials.size();
+
+        if(from >= to || !separators.unrank(from)){
+            return -1;
+        }
+
+        do{
+            IntBitSet separatorVertices = this.compact.verticesOfEdges(separators.current(), separators.size());
+            boolean balanced = true;
+
+            for(int[] component : components(edges, specials, separatorVertices)){
+                if(2 * component.length > size){
+                    balanced = false;
+                    break;
+                }
+            }
+
+            if(balanced){
+                return separators.rank();
+            }
+        }
+        while(separators.rank() + 1 < to && separators.next());
+
+        return -1;
+    }
+
+    /**
+     The components of the edges and special edges once the separator vertices are removed. Items are numbered with
+     the edges first, in increasing order, then the special edges. Items lying inside the separator are in none.
+     */
+    private ArrayList<int[]> components(IntBitSet edges, List<Special> specials, IntBitSet separatorVertices){
+        int[] edgeArray = edges.toArray();
+        int numberOfItems = edgeArray.length + specials.size();
+        int[] unionFind = new int[numberOfItems];
+        int[] firstItem = new int[this.compact.numberOfVertices];
+        boolean[] inside = new boolean[numberOfItems];
+
+        Arrays.fill(firstItem, -1);
+
+        for(int item = 0; item < numberOfItems; ++item){
+            int[] vertices = item < edgeArray.length
+                    ? Arrays.copyOfRange(this.compact.edgeVertices, this.compact.edgeOffsets[edgeArray[item]], this.compact.edgeOffsets[edgeArray[item] + 1])
+                    : specials.get(item - edgeArray.length).vertices.toArray();
+            boolean outside = false;
+
+            unionFind[item] = item;
+
+            for(int vertex : vertices){
+                if(separatorVertices.contains(vertex)){
+                    continue;
+                }
+
+                outside = true;
+
+                if(firstItem[vertex] < 0){
+                    firstItem[vertex] = item;
+                }
+                else{
+                    unionFind[find(unionFind, item)] = find(unionFind, firstItem[vertex]);
+                }
+            }
+
+            inside[item] = !outside;
+        }
+
+        LinkedHashMap<Integer, ArrayList<Integer>> groups = new LinkedHashMap<>();
+
+        for(int item = 0; item < numberOfItems; ++item){
+            if(!inside[item]){
+                groups.computeIfAbsent(find(unionFind, item), root -> new ArrayList<>()).add(item);
+            }
+        }
+
+        ArrayList<int[]> solution = new ArrayList<>();
+
+        for(ArrayList<Integer> group : groups.values()){
+            solution.add(group.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        return solution;
+    }
+
+    private static int find(int[] unionFind, int item){
+        while(unionFind[item] != item){
+            unionFind[item] = unionFind[unionFind[item]];
+            item = unionFind[item];
+        }
+
+        return item;
+    }
+
+    private Node trySeparator(int[] separator, IntBitSet edges, List<Special> specials, IntBitSet vertices, int width, Set<SubproblemKey> failed){
+        IntBitSet separatorVertices = this.compact.verticesOfEdges(separator);
+        IntBitSet bag = IntBitSet.intersection(separatorVertices, vertices);
+        Node node = new Node(bag, separator);
+        int[] edgeArray = edges.toArray();
+        ArrayList<int[]> components = components(edges, specials, separatorVertices);
+        IntBitSet[] componentEdges = new IntBitSet[components.size()];
+        ArrayList<List<Special>> componentSpecials = new ArrayList<>();
+        Special[] borders = new Special[components.size()];
+        IntBitSet placed = new IntBitSet(specials.size());
+
+        for(int index = 0; index < components.size(); ++index){
+            IntBitSet componentVertices = new IntBitSet(this.compact.numberOfVertices);
+            ArrayList<Special> subSpecials = new ArrayList<>();
+
+            componentEdges[index] = new IntBitSet(this.compact.numberOfEdges);
+
+            for(int item : components.get(index)){
+                if(item < edgeArray.length){
+                    componentEdges[index].add(edgeArray[item]);
+                    this.compact.orEdge(componentVertices, edgeArray[item]);
+                }
+                else{
+                    subSpecials.add(specials.get(item - edgeArray.length));
+                    componentVertices.or(specials.get(item - edgeArray.length).vertices);
+                    placed.add(item - edgeArray.length);
+                }
+            }
+
+            borders[index] = new Special(IntBitSet.intersection(componentVertices, bag));
+            subSpecials.add(borders[index]);
+            componentSpecials.add(subSpecials);
+        }
+
+        Node[] children = new Node[components.size()];
+
+        if(this.pool == null || components.size() < 2){
+            for(int index = 0; index < components.size(); ++index){
+                children[index] = decompose(componentEdges[index], componentSpecials.get(index), width, failed);
+
+                if(children[index] == null){
+                    return null;
+                }
+            }
+        }
+        else{
+            ArrayList<RecursiveTask<Node>> tasks = new ArrayList<>();
+
+            for(int index = 0; index < components.size(); ++index){
+                int component = index;
+
+                tasks.add(new RecursiveTask<Node>(){
+                    @Override
+                    protected Node compute(){
+                        return decompose(componentEdges[component], componentSpecials.get(component), width, failed);
+                    }
+                });
+            }
+
+            ForkJoinTask.invokeAll(tasks);
+
+            for(int index = 0; index < components.size(); ++index){
+                children[index] = tasks.get(index).join();
+
+                if(children[index] == null){
+                    return null;
+                }
+            }
+        }
+
+        //the decomposition of a component is glued where its border sits, the node taking the place of the placeholder
+        for(Special border : borders){
+            for(Node neighbour : border.leaf.neighbours){
+                neighbour.neighbours.set(neighbour.neighbours.indexOf(border.leaf), node);
+                node.neighbours.add(neighbour);
+            }
+        }
+
+        //special edges inside the separator belong to no component, they hang from the node directly
+        for(int index = 0; index < specials.size(); ++index){
+            if(!placed.contains(index)){
+                specials.get(index).leaf = new Node(specials.get(index).vertices, null);
+                node.link(specials.get(index).leaf);
+            }
+        }
+
+        return node;
+    }
+
+    //numbers the nodes from the root so that every parent comes before its children
+    private HypertreeDecomposition<T> orient(Node root){
+        ArrayList<Set<T>> bags = new ArrayList<>();
+        ArrayList<Set<Integer>> guards = new ArrayList<>();
+        ArrayList<Integer> parents = new ArrayList<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        IdentityHashMap<Node, Integer> numbers = new IdentityHashMap<>();
+
+        queue.add(root);
+        numbers.put(root, 0);
+        parents.add(-1);
+
+        while(!queue.isEmpty()){
+            Node node = queue.poll();
+            Set<Integer> guard = new HashSet<>();
+
+            for(int edge : node.guard){
+                guard.add(edge);
+            }
+
+            bags.add(this.compact.toLabels(node.bag));
+            guards.add(guard);
+
+            for(Node neighbour : node.neighbours){
+                if(!numbers.containsKey(neighbour)){
+                    numbers.put(neighbour, numbers.size());
+                    parents.add(numbers.get(node));
+                    queue.add(neighbour);
+                }
+            }
+        }
+
+        int[] parentArray = new int[parents.size()];
+
+        for(int node = 0; node < parentArray.length; ++node){
+            parentArray[node] = parents.get(node);
+        }
+
+        return new HypertreeDecomposition<>(bags, guards, parentArray, true);
+    }
+}
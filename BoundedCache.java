@@ -0,0 +1,108 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+/**
+ Least recently used cache with a hard budget on both the number of entries and their estimated size in bytes. Once
+ either budget is exceeded the least recently used entries are evicted. All methods are synchronized, so one instance
+ can be shared by the threads of a solver.
+ */
+public class BoundedCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ToLongBiFunction<K, V> weigher;
+    private final int maximumEntries;
+    private final long maximumBytes;
+
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     @param maximumEntries the maximum number of entries kept at the same time
+     @param maximumBytes the maximum total estimated size of the entries
+     @param weigher estimates the size in bytes of one entry
+     */
+    public BoundedCache(int maximumEntries, long maximumBytes, ToLongBiFunction<K, V> weigher){
+        this.maximumEntries = maximumEntries;
+        this.maximumBytes = maximumBytes;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key){
+        V value = this.entries.get(key);
+
+        if(value == null){
+            this.misses ++;
+        }
+        else{
+            this.hits ++;
+        }
+
+        return value;
+    }
+
+    public synchronized boolean contains(K key){
+        return get(key) != null;
+    }
+
+    public synchronized void put(K key, V value){
+        long weight = this.weigher.applyAsLong(key, value);
+
+        V old = this.entries.remove(key);
+
+        if(old != null){
+            this.bytes -= this.weigher.applyAsLong(key, old);
+        }
+
+        //an entry bigger than the whole budget would only evict everything else, and the value it replaces is stale
+        if(weight > this.maximumBytes || this.maximumEntries == 0){
+            return;
+        }
+
+        this.entries.put(key, value);
+        this.bytes += weight;
+
+        Iterator<Map.Entry<K, V>> eldest = this.entries.entrySet().iterator();
+
+        while((this.entries.size() > this.maximumEntries || this.bytes > this.maximumBytes) && eldest.hasNext()){
+            Map.Entry<K, V> entry = eldest.next();
+
+            this.bytes -= this.weigher.applyAsLong(entry.getKey(), entry.getValue());
+            eldest.remove();
+            this.evictions ++;
+        }
+    }
+
+    public synchronized void clear(){
+        this.entries.clear();
+        this.bytes = 0;
+    }
+
+    public synchronized int size(){
+        return this.entries.size();
+    }
+
+    public synchronized long bytes(){
+        return this.bytes;
+    }
+
+    public synchronized long hits(){
+        return this.hits;
+    }
+
+    public synchronized long misses(){
+        return this.misses;
+    }
+
+    public synchronized long evictions(){
+        return this.evictions;
+    }
+
+    @Override
+    public synchronized String toString(){
+        return "entries " + this.entries.size() + ", bytes " + this.bytes + ", hits " + this.hits + ", misses " + this.misses + ", evictions " + this.evictions;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ Tells a branch of a parallel search that its result is no longer needed. A branch is cancelled when it was cancelled
+ itself or when any branch above it was, so cancelling a node of the search stops everything running below it.
+ */
+public class Cancellation {
+
+    public static final Cancellation NEVER = new Cancellation(null);
+
+    private final Cancellation parent;
+    private volatile boolean cancelled = false;
+
+    public Cancellation(Cancellation parent){
+        this.parent = parent;
+    }
+
+    public void cancel(){
+        if(this != NEVER){
+            this.cancelled = true;
+        }
+    }
+
+    public boolean isCancelled(){
+        return this.cancelled || (this.parent != null && this.parent.isCancelled());
+    }
+
+    /**
+     Records that the search tried one more guard candidate. Only a SearchBudget at the root of the branches keeps
+     count, so this is passed up.
+     */
+    public void countGuardCandidate(){
+        if(this.parent != null){
+            this.parent.countGuardCandidate();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.*;
+
+/**
+ Frozen, read-only view of a Hypergraph. Vertices are interned to dense ints 0..numberOfVertices - 1 (in increasing
+ order of their labels) and both incidence directions are stored CSR style, so the solvers can walk the hypergraph
+ with plain array reads instead of going through the boxed maps.
+ */
+public class CompactHypergraph<K extends Comparable<? super K>> {
+
+    public final int numberOfVertices;
+    public final int numberOfEdges;
+
+    //the vertices of edge e are edgeVertices[edgeOffsets[e] .. edgeOffsets[e + 1]), sorted increasingly
+    public final int[] edgeOffsets;
+    public final int[] edgeVertices;
+
+    //the edges covering vertex v are vertexEdges[vertexOffsets[v] .. vertexOffsets[v + 1]), sorted increasingly
+    public final int[] vertexOffsets;
+    public final int[] vertexEdges;
+
+    private final ArrayList<K> labels;
+    private final HashMap<K, Integer> ids;
+
+    public CompactHypergraph(Hypergraph<K> hypergraph){
+
+        //intern the vertices in increasing order so the numbering does not depend on the HashMap iteration order
+        this.labels = new ArrayList<>(hypergraph.vertexToHyperedge.keySet());
+        Collections.sort(this.labels);
+
+        this.numberOfVertices = this.labels.size();
+        this.numberOfEdges = hypergraph.hyperedges.size();
+        this.ids = new HashMap<>(this.numberOfVertices * 2);
+
+        for(int id = 0; id < this.numberOfVertices; ++id){
+            this.ids.put(this.labels.get(id), id);
+        }
+
+        this.edgeOffsets = new int[this.numberOfEdges + 1];
+
+        for(int edge = 0; edge < this.numberOfEdges; ++edge){
+            this.edgeOffsets[edge + 1] = this.edgeOffsets[edge] + hypergraph.hyperedges.get(edge).size();
+        }
+
+        this.edgeVertices = new int[this.edgeOffsets[this.numberOfEdges]];
+        this.vertexOffsets = new int[this.numberOfVertices + 1];
+
+        for(int edge = 0; edge < this.numberOfEdges; ++edge){
+            int position = this.edgeOffsets[edge];
+
+            for(K vertex : hypergraph.hyperedges.get(edge).keySet()){
+                int id = this.ids.get(vertex);
+
+                this.edgeVertices[position ++] = id;
+                this.vertexOffsets[id + 1] ++;
+            }
+
+            Arrays.sort(this.edgeVertices, this.edgeOffsets[edge], this.edgeOffsets[edge + 1]);
+        }
+
+        for(int id = 0; id < this.numberOfVertices; ++id){
+            this.vertexOffsets[id + 1] += this.vertexOffsets[id];
+        }
+
+        //edges are visited in increasing order, so every incidence list comes out sorted
+        this.vertexEdges = new int[this.vertexOffsets[this.numberOfVertices]];
+        int[] fill = Arrays.copyOf(this.vertexOffsets, this.numberOfVertices);
+
+        for(int edge = 0; edge < this.numberOfEdges; ++edge){
+            for(int index = this.edgeOffsets[edge]; index < this.edgeOffsets[edge + 1]; ++index){
+                this.vertexEdges[fill[this.edgeVertices[index]] ++] = edge;
+            }
+        }
+    }
+
+    public int vertexId(K vertex){
+        Integer id = this.ids.get(vertex);
+
+        return id == null ? -1 : id;
+    }
+
+    public K vertex(int id){
+        return this.labels.get(id);
+    }
+
+    public int edgeSize(int edge){
+        return this.edgeOffsets[edge + 1] - this.edgeOffsets[edge];
+    }
+
+    public int vertexDegree(int vertex){
+        return this.vertexOffsets[vertex + 1] - this.vertexOffsets[vertex];
+    }
+
+    /**
+     The vertices lying in at least two edges, which are exactly the vertices of the intersections of two distinct
+     edges.
+     */
+    public IntBitSet sharedVertices(){
+        IntBitSet solution = new IntBitSet(this.numberOfVertices);
+
+        for(int vertex = 0; vertex < this.numberOfVertices; ++vertex){
+            if(vertexDegree(vertex) >= 2){
+                solution.add(vertex);
+            }
+        }
+
+        return solution;
+    }
+
+    public boolean edgeContains(int edge, int vertex){
+        return Arrays.binarySearch(this.edgeVertices, this.edgeOffsets[edge], this.edgeOffsets[edge + 1], vertex) >= 0;
+    }
+
+    /**
+     The vertices of the edge as a new bitset. A dense bitset per edge would take numberOfEdges * numberOfVertices bits,
+     so none is kept, and the hot paths use orEdge, edgeMeets and edgeSubsetOf on the CSR range instead.
+     */
+    public IntBitSet edgeSet(int edge){
+        IntBitSet solution = new IntBitSet(this.numberOfVertices);
+
+        orEdge(solution, edge);
+
+        return solution;
+    }
+
+    /**
+     Adds the vertices of the edge to target.
+     */
+    public void orEdge(IntBitSet target, int edge){
+        for(int index = this.edgeOffsets[edge]; index < this.edgeOffsets[edge + 1]; ++index){
+            target.add(this.edgeVertices[index]);
+        }
+    }
+
+    /**
+     The number of vertices of the edge in the set.
+     */
+    public int edgeMeets(int edge, IntBitSet vertices){
+        int count = 0;
+
+        for(int index = this.edgeOffsets[edge]; index < this.edgeOffsets[edge + 1]; ++index){
+            if(vertices.contains(this.edgeVertices[index])){
+                count ++;
+            }
+        }
+
+        return count;
+    }
+
+    public boolean edgeSubsetOf(int edge, IntBitSet vertices){
+        for(int index = this.edgeOffsets[edge]; index < this.edgeOffsets[edge + 1]; ++index){
+            if(!vertices.contains(this.edgeVertices[index])){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public IntBitSet verticesOfEdges(int[] edges){
+        return verticesOfEdges(edges, edges.length);
+    }
+
+    /**
+     The vertices of the first count edges of the array.
+     */
+    public IntBitSet verticesOfEdges(int[] edges, int count){
+        IntBitSet solution = new IntBitSet(this.numberOfVertices);
+
+        for(int index = 0; index < count; ++index){
+            orEdge(solution, edges[index]);
+        }
+
+        return solution;
+    }
+
+    public IntBitSet verticesOfEdges(IntBitSet edges){
+        IntBitSet solution = new IntBitSet(this.numberOfVertices);
+
+        for(int edge = edges.nextSetBit(0); edge >= 0; edge = edges.nextSetBit(edge + 1)){
+            orEdge(solution, edge);
+        }
+
+        return solution;
+    }
+
+    public IntBitSet toIds(Collection<K> vertices){
+        IntBitSet solution = new IntBitSet(this.numberOfVertices);
+        int id;
+
+        for(K vertex : vertices){
+            id = vertexId(vertex);
+
+            if(id >= 0){
+                solution.add(id);
+            }
+        }
+
+        return solution;
+    }
+
+    public Set<K> toLabels(IntBitSet vertices){
+        Set<K> solution = new HashSet<>();
+
+        for(int id = vertices.nextSetBit(0); id >= 0; id = vertices.nextSetBit(id + 1)){
+            solution.add(this.labels.get(id));
+        }
+
+        return solution;
+    }
+}
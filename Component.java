@@ -1,11 +1,29 @@
-import java.util.HashSet;
+/**
+ A component of the hypergraph, given by the compact ids of its vertices and the indices of the edges touching it.
+ */
+public class Component {
+    public IntBitSet vertices;
+    public IntBitSet indicesOfEdges;
 
-public class Component <K extends Comparable<? super K>> {
-    public HashSet<K> vertices;
-    public HashSet<Integer> indicesOfEdges;
+    public Component(CompactHypergraph<?> hypergraph){
+        this.vertices = new IntBitSet(hypergraph.numberOfVertices);
+        this.indicesOfEdges = new IntBitSet(hypergraph.numberOfEdges);
+    }
+
+    /**
+     Returns the component holding the whole hypergraph, where the search starts from.
+     */
+    public static Component whole(CompactHypergraph<?> hypergraph){
+        Component component = new Component(hypergraph);
+
+        for(int vertex = 0; vertex < hypergraph.numberOfVertices; ++vertex){
+            component.vertices.add(vertex);
+        }
+
+        for(int edge = 0; edge < hypergraph.numberOfEdges; ++edge){
+            component.indicesOfEdges.add(edge);
+        }
 
-    public Component(){
-        this.vertices = new HashSet<>();
-        this.indicesOfEdges = new HashSet<>();
+        return component;
     }
 }
@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+
+/**
+ Splits a set of vertices into the components left once a separator is removed, with an explicit stack instead of
+ recursion, so long path-like hypergraphs cannot overflow the thread stack. Every vertex and every edge is scanned at
+ most once per call, and the traversal never leaves the given vertices.
+ */
+public final class ComponentFinder {
+
+    private ComponentFinder(){
+    }
+
+    /**
+     Returns the components of the vertices minus the separator, ordered by their smallest vertex. The edges of a
+     component are all the edges touching one of its vertices.
+     */
+    public static ArrayList<Component> split(CompactHypergraph<?> hypergraph, IntBitSet vertices, IntBitSet separator){
+
+        ArrayList<Component> allComponents = new ArrayList<>();
+        IntBitSet explored = separator.copy();
+        IntBitSet scannedEdges = new IntBitSet(hypergraph.numberOfEdges);
+        int[] stack = new int[hypergraph.numberOfVertices];
+        int top;
+        int vertex;
+        int edge;
+        int neighVertex;
+        Component partialSolution;
+
+        for(int start = vertices.nextSetBit(0); start >= 0; start = vertices.nextSetBit(start + 1)){
+            if(explored.contains(start)){
+                continue;
+            }
+
+            partialSolution = new Component(hypergraph);
+            top = 0;
+            stack[top ++] = start;
+            explored.add(start);
+
+            while(top > 0){
+                vertex = stack[-- top];
+                partialSolution.vertices.add(vertex);
+
+                //We need to explore all the nodes we can get to from this one
+                for(int incidence = hypergraph.vertexOffsets[vertex]; incidence < hypergraph.vertexOffsets[vertex + 1]; ++incidence){
+                    edge = hypergraph.vertexEdges[incidence];
+                    partialSolution.indicesOfEdges.add(edge);
+
+                    //the vertices of an edge only need to be pushed the first time we reach it
+                    if(scannedEdges.contains(edge)){
+                        continue;
+                    }
+
+                    scannedEdges.add(edge);
+
+                    for(int index = hypergraph.edgeOffsets[edge]; index < hypergraph.edgeOffsets[edge + 1]; ++index){
+                        neighVertex = hypergraph.edgeVertices[index];
+
+                        if(!explored.contains(neighVertex) && vertices.contains(neighVertex)){
+                            explored.add(neighVertex);
+                            stack[top ++] = neighVertex;
+                        }
+                    }
+                }
+            }
+
+            allComponents.add(partialSolution);
+        }
+
+        return allComponents;
+    }
+}
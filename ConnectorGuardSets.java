@@ -0,0 +1,140 @@
+/**
+ Enumerates the guard candidates of a component in the same order as GetSets (by increasing size, then
+ lexicographically over the domain), but only those whose vertices cover the connector. A prefix of edges is
+ abandoned as soon as the edges still available after it cannot cover the rest of the connector, so whole blocks of
+ hopeless candidates are skipped without being generated. Like GetSets, it works in place and does not allocate
+ while enumerating.
+ */
+public class ConnectorGuardSets {
+
+    private final CompactHypergraph<?> hypergraph;
+    private final int[] domain;
+    private final int maximumSize;
+    private final IntBitSet connector;
+
+    //suffixUnion[p] holds the vertices of the edges domain[p], domain[p + 1], ...
+    private final IntBitSet[] suffixUnion;
+
+    //covered[l] holds the vertices of the first l chosen edges
+    private final IntBitSet[] covered;
+    private final int[] positions;
+    private final int[] current;
+    private int size;
+
+    private boolean started = false;
+    private boolean exhausted = false;
+
+    /**
+     @param hypergraph the hypergraph the edges belong to
+     @param maximumSize the maximum number of edges of a guard
+     @param domain the edges the guards are chosen from
+     @param connector the vertices every guard has to cover
+     */
+    public ConnectorGuardSets(CompactHypergraph<?> hypergraph, int maximumSize, int[] domain, IntBitSet connector){
+        this.hypergraph = hypergraph;
+        this.domain = domain;
+        this.maximumSize = Math.min(maximumSize, domain.length);
+        this.connector = connector;
+
+        this.suffixUnion = new IntBitSet[domain.length + 1];
+        this.suffixUnion[domain.length] = new IntBitSet(hypergraph.numberOfVertices);
+
+        for(int position = domain.length - 1; position >= 0; --position){
+            this.suffixUnion[position] = this.suffixUnion[position + 1].copy();
+            hypergraph.orEdge(this.suffixUnion[position], domain[position]);
+        }
+
+        this.covered = new IntBitSet[Math.max(this.maximumSize, 0) + 1];
+
+        for(int level = 0; level < this.covered.length; ++level){
+            this.covered[level] = new IntBitSet(hypergraph.numberOfVertices);
+        }
+
+        this.positions = new int[Math.max(this.maximumSize, 0)];
+        this.current = new int[Math.max(this.maximumSize, 0)];
+    }
+
+    /**
+     Moves to the next guard covering the connector. Returns false once there are none left.
+     */
+    public boolean next(){
+
+        if(this.exhausted){
+            return false;
+        }
+
+        int level;
+        int position;
+
+        if(!this.started){
+            this.started = true;
+            this.size = 1;
+            level = 0;
+            position = 0;
+        }
+        else{
+            level = this.size - 1;
+            position = this.positions[level] + 1;
+        }
+
+        while(true){
+
+            if(this.size > this.maximumSize){
+                this.exhausted = true;
+                return false;
+            }
+
+            boolean placed = false;
+
+            while(position <= this.domain.length - (this.size - level)){
+
+                //whatever we pick from here on comes from the suffix, so it has to be able to cover the rest of the connector
+                if(!this.connector.isSubsetOfUnion(this.covered[level], this.suffixUnion[position])){
+                    break;
+                }
+
+                this.positions[level] = position;
+                this.current[level] = this.domain[position];
+                this.covered[level + 1].setTo(this.covered[level]);
+                this.hypergraph.orEdge(this.covered[level + 1], this.domain[position]);
+
+                if(level + 1 < this.size){
+                    placed = true;
+                    break;
+                }
+
+                if(this.connector.isSubsetOf(this.covered[level + 1])){
+                    return true;
+                }
+
+                position ++;
+            }
+
+            if(placed){
+                level ++;
+                position = this.positions[level - 1] + 1;
+            }
+            else if(level > 0){
+                level --;
+                position = this.positions[level] + 1;
+            }
+            else{
+                // If we get here, it means we exhausted the values for this number of levels and we need to increase it by one
+                this.size ++;
+                position = 0;
+            }
+        }
+    }
+
+    /**
+     The edges of the current guard are the first size() entries of the returned array. The array is reused by the
+     next call to next().
+     */
+    public int[] current(){
+        return this.current;
+    }
+
+    public int size(){
+        return this.size;
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+/**
+ Cheap bounds on the fractional edge cover number of a set of vertices W, computed from the incidences of W with no
+ LP, so that most covers can be decided without one:
+ - lowerBound comes from a fractional packing: every vertex v of W gets 1 / |e and W| for the edge e holding v that
+   meets W the most. No edge gets more than 1 in total, so by LP duality no cover weighs less than the sum;
+ - upperCover gives every edge touching W the largest 1 / d(v) over its vertices v in W, d(v) being the number of
+   edges holding v, which covers every vertex, and then lowers each edge in turn as far as the cover allows.
+ SolverFED rejects a cover giving some edge a weight of 1, so upperCover may only stand in for the LP when no optimal
+ cover does that, which excludesUnitWeight checks: a cover with x_e = 1 weighs at least 1 plus the cover number of W
+ minus e, itself at least the packing bound of W minus e. This fails whenever some edge holds all of W.
+ */
+public final class CoverBounds {
+
+    //weights left below this by the lowering pass are rounding residues, not edges of the cover
+    private static final double TOLERANCE = 1e-9;
+
+    public final double lowerBound;
+    public final FractionalCover upperCover;
+
+    private final CompactHypergraph<?> compact;
+    private final int[] w;
+    private final IntBitSet wSet;
+
+    /**
+     The bounds for the first wSize vertex ids of w, in increasing order, wSet holding the same vertices. wSet must
+     not change while excludesUnitWeight may still be called.
+     */
+    public CoverBounds(CompactHypergraph<?> compact, int[] w, int wSize, IntBitSet wSet){
+        this.compact = compact;
+        this.w = Arrays.copyOf(w, wSize);
+        this.wSet = wSet;
+        this.lowerBound = packing(-1);
+        this.upperCover = upperCover(compact, this.w, touchingEdges(compact, this.w));
+    }
+
+    /**
+     Whether no optimal cover of W gives an edge a weight of 1, so that SolverFED accepts the LP cover whenever it
+     accepts upperCover. Takes one packing per edge touching W, so it is only worth it once upperCover fits.
+     */
+    public boolean excludesUnitWeight(){
+        if(this.upperCover.hasUnitWeight){
+            return false;
+        }
+
+        for(int edge : touchingEdges(this.compact, this.w)){
+            if(this.upperCover.value >= 1 + packing(edge) - TOLERANCE){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //the packing bound of W minus the vertices of the edge, or of all of W for -1. Every vertex v gets 1 / |e and W|
+    //for the edge e holding v that meets the set the most
+    private double packing(int without){
+        double total = 0;
+
+        for(int vertex : this.w){
+            int largest = 0;
+
+            if(without >= 0 && holds(without, vertex)){
+                continue;
+            }
+
+            for(int incidence = this.compact.vertexOffsets[vertex]; incidence < this.compact.vertexOffsets[vertex + 1]; ++incidence){
+                int edge = this.compact.vertexEdges[incidence];
+                int count = 0;
+
+                for(int index = this.compact.edgeOffsets[edge]; index < this.compact.edgeOffsets[edge + 1]; ++index){
+                    if(this.wSet.contains(this.compact.edgeVertices[index]) && (without < 0 || !holds(without, this.compact.edgeVertices[index]))){
+                        count ++;
+                    }
+                }
+
+                largest = Math.max(largest, count);
+            }
+
+            total += 1.0 / largest;
+        }
+
+        return total;
+    }
+
+    private boolean holds(int edge, int vertex){
+        return Arrays.binarySearch(this.compact.edgeVertices, this.compact.edgeOffsets[edge], this.compact.edgeOffsets[edge + 1], vertex) >= 0;
+    }
+
+    //the edges holding some vertex of W, in increasing order
+    private static int[] touchingEdges(CompactHypergraph<?> compact, int[] w){
+        int count = 0;
+
+        for(int vertex : w){
+            count += compact.vertexOffsets[vertex + 1] - compact.vertexOffsets[vertex];
+        }
+
+        int[] edges = new int[count];
+        int size = 0;
+
+        count = 0;
+
+        for(int vertex : w){
+            for(int incidence = compact.vertexOffsets[vertex]; incidence < compact.vertexOffsets[vertex + 1]; ++incidence){
+                edges[count ++] = compact.vertexEdges[incidence];
+            }
+        }
+
+        Arrays.sort(edges);
+
+        for(int index = 0; index < count; ++index){
+            if(size == 0 || edges[size - 1] != edges[index]){
+                edges[size ++] = edges[index];
+            }
+        }
+
+        return Arrays.copyOf(edges, size);
+    }
+
+    //covered is indexed by the position of a vertex in w
+    private static FractionalCover upperCover(CompactHypergraph<?> compact, int[] w, int[] edges){
+        double[] weights = new double[edges.length];
+        double[] covered = new double[w.length];
+
+        for(int column = 0; column < edges.length; ++column){
+            for(int index = compact.edgeOffsets[edges[column]]; index < compact.edgeOffsets[edges[column] + 1]; ++index){
+                int vertex = compact.edgeVertices[index];
+
+                if(Arrays.binarySearch(w, vertex) >= 0){
+                    weights[column] = Math.max(weights[column], 1.0 / (compact.vertexOffsets[vertex + 1] - compact.vertexOffsets[vertex]));
+                }
+            }
+
+            for(int index = compact.edgeOffsets[edges[column]]; index < compact.edgeOffsets[edges[column] + 1]; ++index){
+                int position = Arrays.binarySearch(w, compact.edgeVertices[index]);
+
+                if(position >= 0){
+                    covered[position] += weights[column];
+                }
+            }
+        }
+
+        //an edge can give up as much as its least covered vertex of W has beyond 1
+        for(int column = 0; column < edges.length; ++column){
+            double spare = weights[column];
+
+            for(int index = compact.edgeOffsets[edges[column]]; index < compact.edgeOffsets[edges[column] + 1]; ++index){
+                int position = Arrays.binarySearch(w, compact.edgeVertices[index]);
+
+                if(position >= 0){
+                    spare = Math.min(spare, covered[position] - 1);
+                }
+            }
+
+            if(spare > 0){
+                weights[column] -= spare;
+
+                for(int index = compact.edgeOffsets[edges[column]]; index < compact.edgeOffsets[edges[column] + 1]; ++index){
+                    int position = Arrays.binarySearch(w, compact.edgeVertices[index]);
+
+                    if(position >= 0){
+                        covered[position] -= spare;
+                    }
+                }
+            }
+        }
+
+        int size = 0;
+        double value = 0;
+        boolean unit = false;
+
+        for(int column = 0; column < edges.length; ++column){
+            if(weights[column] > TOLERANCE){
+                edges[size] = edges[column];
+                weights[size ++] = weights[column];
+                value += weights[column];
+                unit |= weights[column] > 1 - TOLERANCE;
+            }
+        }
+
+        return new FractionalCover(Arrays.copyOf(edges, size), Arrays.copyOf(weights, size), value, unit);
+    }
+
+    /**
+     Counts how the covers checked by FHDSolver were decided. The gap is the difference between the two bounds, averaged
+     over the checks.
+     */
+    public static final class Statistics {
+        private long rejectedWithoutLp = 0;
+        private long acceptedWithoutLp = 0;
+        private long decidedByLp = 0;
+        private double totalGap = 0;
+
+        //decision is negative for a cover rejected on the bounds, positive for one accepted on upperCover and 0 for
+        //one left to the LP
+        void record(CoverBounds bounds, int decision){
+            if(decision < 0){
+                this.rejectedWithoutLp ++;
+            }
+            else if(decision > 0){
+                this.acceptedWithoutLp ++;
+            }
+            else{
+                this.decidedByLp ++;
+            }
+
+            this.totalGap += bounds.upperCover.value - bounds.lowerBound;
+        }
+
+        public long rejectedWithoutLp(){
+            return this.rejectedWithoutLp;
+        }
+
+        public long acceptedWithoutLp(){
+            return this.acceptedWithoutLp;
+        }
+
+        public long decidedByLp(){
+            return this.decidedByLp;
+        }
+
+        public double meanGap(){
+            long checks = this.rejectedWithoutLp + this.acceptedWithoutLp + this.decidedByLp;
+
+            return checks == 0 ? 0 : this.totalGap / checks;
+        }
+
+        @Override
+        public String toString(){
+            return this.rejectedWithoutLp + " covers rejected and " + this.acceptedWithoutLp
+                    + " accepted on the bounds, " + this.decidedByLp + " left to the exact LP, mean gap " + meanGap();
+        }
+    }
+}
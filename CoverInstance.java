@@ -0,0 +1,101 @@
+import java.util.*;
+
+/**
+ The fractional edge cover LP of a set of vertices W, reduced to what matters for it: every edge touching W is cut
+ down to its projection on W, and a projection equal to or contained in another one is dropped, since the larger
+ edge covers everything it does at the same cost. Projections are bitsets over the positions of W, so duplicates are
+ found by hashing and the containments by one pass over the projections sorted by decreasing size.
+
+ Row i stands for the i-th vertex of W and every column for one projection, kept with the first edge giving it.
+ Columns are in increasing order of that edge and list their rows in columnRows, CSR style.
+ */
+public final class CoverInstance {
+
+    public final int rows;
+    public final int columns;
+    public final int[] edges;
+    public final int[] columnOffsets;
+    public final int[] columnRows;
+
+    /**
+     Projects the edges of the hypergraph on the first wSize vertex ids of w, which must be in increasing order.
+     */
+    public CoverInstance(CompactHypergraph<?> compact, int[] w, int wSize){
+        IntBitSet wSet = IntBitSet.of(compact.numberOfVertices, Arrays.copyOf(w, wSize));
+        IntBitSet seenEdges = new IntBitSet(compact.numberOfEdges);
+
+        //the first edge of every projection, and the projections in order of first appearance
+        HashMap<IntBitSet, Integer> firstEdges = new HashMap<>();
+        ArrayList<IntBitSet> projections = new ArrayList<>();
+
+        for(int row = 0; row < wSize; ++row){
+            for(int incidence = compact.vertexOffsets[w[row]]; incidence < compact.vertexOffsets[w[row] + 1]; ++incidence){
+                int edge = compact.vertexEdges[incidence];
+
+                if(seenEdges.contains(edge)){
+                    continue;
+                }
+
+                seenEdges.add(edge);
+
+                IntBitSet projection = new IntBitSet(wSize);
+
+                for(int index = compact.edgeOffsets[edge]; index < compact.edgeOffsets[edge + 1]; ++index){
+                    int vertex = compact.edgeVertices[index];
+
+                    if(wSet.contains(vertex)){
+                        projection.add(Arrays.binarySearch(w, 0, wSize, vertex));
+                    }
+                }
+
+                Integer first = firstEdges.get(projection);
+
+                if(first == null){
+                    projections.add(projection);
+                }
+
+                firstEdges.put(projection, first == null ? edge : Math.min(first, edge));
+            }
+        }
+
+        //a projection can only be contained in a larger one, so the larger ones are kept or dropped first
+        projections.sort(Comparator.comparingInt(IntBitSet::cardinality).reversed());
+
+        ArrayList<IntBitSet> kept = new ArrayList<>();
+
+        for(IntBitSet projection : projections){
+            boolean dominated = false;
+
+            for(int index = 0; index < kept.size() && !dominated; ++index){
+                dominated = projection.isSubsetOf(kept.get(index));
+            }
+
+            if(!dominated){
+                kept.add(projection);
+            }
+        }
+
+        kept.sort(Comparator.comparingInt(firstEdges::get));
+
+        this.rows = wSize;
+        this.columns = kept.size();
+        this.edges = new int[this.columns];
+        this.columnOffsets = new int[this.columns + 1];
+
+        for(int column = 0; column < this.columns; ++column){
+            this.edges[column] = firstEdges.get(kept.get(column));
+            this.columnOffsets[column + 1] = this.columnOffsets[column] + kept.get(column).cardinality();
+        }
+
+        this.columnRows = new int[this.columnOffsets[this.columns]];
+
+        for(int column = 0; column < this.columns; ++column){
+            int position = this.columnOffsets[column];
+            IntBitSet projection = kept.get(column);
+
+            for(int row = projection.nextSetBit(0); row >= 0; row = projection.nextSetBit(row + 1)){
+                this.columnRows[position ++] = row;
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.Arrays;
+
+/**
+ Solves the fractional edge cover LP of a set of vertices W: minimize the total weight of the edges so that every
+ vertex of W gets a weight of at least 1 from the edges holding it. The LP is read from a CoverInstance, with one row
+ per vertex of W and one column per projection of an edge on W, and the weights are never negative without any
+ constraint saying so.
+
+ With all costs equal to 1 the basis of the surplus variables is dual feasible from the start, so a cold solve runs
+ the dual simplex from there with no first phase. A warm start pivots the edges of a previous basis in first and
+ then runs the primal or the dual simplex, whichever the resulting basis is feasible for, falling back to a cold
+ solve when it is neither. W is a handful of vertices, so the tableau has few rows. Both simplexes pick their pivots
+ by Bland's rule, the smallest column index among the candidates, so degenerate pivots cannot cycle.
+
+ The buffers grow to the largest LP seen and are reused by the next solves, so an instance must not be shared
+ between threads.
+ */
+public class CoverSimplex {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private int rows;
+    private int columns;
+
+    //the edge of every structural column, then the row of the tableau and the column basic in each row. The tableau
+    //has one row per vertex of W and a last row of reduced costs. Its columns are the edges, the surplus variables and
+    //the right-hand side
+    private int[] edges = new int[0];
+    private int[] basic = new int[0];
+    private double[] tableau = new double[0];
+    private int width;
+
+    private double value;
+
+    /**
+     Solves the LP of the instance and returns its optimal value. basisHint holds edges of an earlier basis to start
+     from, or is null for a cold start. The weights are read with weight afterwards.
+     */
+    public double solve(CoverInstance instance, int[] basisHint){
+        load(instance);
+
+        if(basisHint == null || !warmStart(basisHint)){
+            load(instance);
+            dualSimplex();
+        }
+
+        this.value = -this.tableau[this.rows * this.width + this.width - 1];
+        this.value = snap(this.value);
+
+        return this.value;
+    }
+
+    public double value(){
+        return this.value;
+    }
+
+    /**
+     The number of columns of the last LP, one per column of the instance, in increasing order of edge.
+     */
+    public int numberOfColumns(){
+        return this.columns;
+    }
+
+    public int edge(int column){
+        return this.edges[column];
+    }
+
+    /**
+     The weight of the edge of the column in the optimal solution. Values within 1e-9 of an integer are rounded to it.
+     */
+    public double weight(int column){
+        for(int row = 0; row < this.rows; ++row){
+            if(this.basic[row] == column){
+                return snap(this.tableau[row * this.width + this.width - 1]);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     The edges basic in the optimal solution, to be passed as basisHint to a later solve of a similar W.
+     */
+    public int[] basis(){
+        int[] solution = new int[this.rows];
+        int size = 0;
+
+        for(int row = 0; row < this.rows; ++row){
+            if(this.basic[row] < this.columns){
+                solution[size ++] = this.edges[this.basic[row]];
+            }
+        }
+
+        return Arrays.copyOf(solution, size);
+    }
+
+    //builds the tableau of the cold start, each row negated so that its surplus variable is basic
+    private void load(CoverInstance instance){
+        this.rows = instance.rows;
+        this.columns = instance.columns;
+        this.width = this.columns + this.rows + 1;
+        this.edges = grow(this.edges, this.columns);
+
+        System.arraycopy(instance.edges, 0, this.edges, 0, this.columns);
+
+        if(this.tableau.length < (this.rows + 1) * this.width){
+            this.tableau = new double[(this.rows + 1) * this.width];
+        }
+
+        if(this.basic.length < this.rows){
+            this.basic = new int[this.rows];
+        }
+
+        Arrays.fill(this.tableau, 0, (this.rows + 1) * this.width, 0);
+
+        for(int column = 0; column < this.columns; ++column){
+            for(int index = instance.columnOffsets[column]; index < instance.columnOffsets[column + 1]; ++index){
+                this.tableau[instance.columnRows[index] * this.width + column] = -1;
+            }
+
+            this.tableau[this.rows * this.width + column] = 1;
+        }
+
+        for(int row = 0; row < this.rows; ++row){
+            this.tableau[row * this.width + this.columns + row] = 1;
+            this.tableau[row * this.width + this.width - 1] = -1;
+            this.basic[row] = this.columns + row;
+        }
+    }
+
+    //pivots the hinted edges into the basis, then finishes with the simplex the basis is feasible for, if any
+    private boolean warmStart(int[] basisHint){
+        for(int edge : basisHint){
+            int column = Arrays.binarySearch(this.edges, 0, this.columns, edge);
+            int pivotRow = -1;
+
+            if(column < 0){
+                continue;
+            }
+
+            //only a surplus variable leaves, so the hinted edges pivoted in before stay basic
+            for(int row = 0; row < this.rows; ++row){
+                if(this.basic[row] >= this.columns && Math.abs(this.tableau[row * this.width + column]) > TOLERANCE
+                        && (pivotRow < 0 || Math.abs(this.tableau[row * this.width + column]) > Math.abs(this.tableau[pivotRow * this.width + column]))){
+                    pivotRow = row;
+                }
+            }
+
+            if(pivotRow >= 0){
+                pivot(pivotRow, column);
+            }
+        }
+
+        boolean primalFeasible = true;
+        boolean dualFeasible = true;
+
+        for(int row = 0; row < this.rows; ++row){
+            primalFeasible &= this.tableau[row * this.width + this.width - 1] >= -TOLERANCE;
+        }
+
+        for(int column = 0; column < this.width - 1; ++column){
+            dualFeasible &= this.tableau[this.rows * this.width + column] >= -TOLERANCE;
+        }
+
+        if(primalFeasible){
+            primalSimplex();
+            return true;
+        }
+
+        if(dualFeasible){
+            dualSimplex();
+            return true;
+        }
+
+        return false;
+    }
+
+    //Bland's rule for the dual simplex: the leaving row is the one with a negative right-hand side whose basic column
+    //comes first, and of the columns tied on the ratio the first one enters
+    private void dualSimplex(){
+        while(true){
+            int pivotRow = -1;
+
+            for(int row = 0; row < this.rows; ++row){
+                if(this.tableau[row * this.width + this.width - 1] < -TOLERANCE && (pivotRow < 0 || this.basic[row] < this.basic[pivotRow])){
+                    pivotRow = row;
+                }
+            }
+
+            if(pivotRow < 0){
+                return;
+            }
+
+            int pivotColumn = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+
+            for(int column = 0; column < this.width - 1; ++column){
+                double entry = this.tableau[pivotRow * this.width + column];
+
+                if(entry < -TOLERANCE){
+                    double ratio = this.tableau[this.rows * this.width + column] / -entry;
+
+                    if(ratio < bestRatio - TOLERANCE){
+                        bestRatio = ratio;
+                        pivotColumn = column;
+                    }
+                }
+            }
+
+            //every vertex of W lies in some edge, so a row with no way to fix it cannot happen
+            if(pivotColumn < 0){
+                throw new IllegalStateException("the fractional edge cover LP has no solution");
+            }
+
+            pivot(pivotRow, pivotColumn);
+        }
+    }
+
+    //Bland's rule for the primal simplex: the first column with a negative reduced cost enters, and of the rows tied on
+    //the ratio the one whose basic column comes first leaves
+    private void primalSimplex(){
+        while(true){
+            int pivotColumn = -1;
+
+            for(int column = 0; column < this.width - 1 && pivotColumn < 0; ++column){
+                if(this.tableau[this.rows * this.width + column] < -TOLERANCE){
+                    pivotColumn = column;
+                }
+            }
+
+            if(pivotColumn < 0){
+                return;
+            }
+
+            int pivotRow = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+
+            for(int row = 0; row < this.rows; ++row){
+                double entry = this.tableau[row * this.width + pivotColumn];
+
+                if(entry > TOLERANCE){
+                    double ratio = this.tableau[row * this.width + this.width - 1] / entry;
+
+                    if(ratio < bestRatio - TOLERANCE || (ratio < bestRatio + TOLERANCE && this.basic[row] < this.basic[pivotRow])){
+                        bestRatio = Math.min(bestRatio, ratio);
+                        pivotRow = row;
+                    }
+                }
+            }
+
+            //the weights are bounded below by 0, so the objective cannot go down forever
+            if(pivotRow < 0){
+                throw new IllegalStateException("the fractional edge cover LP is unbounded");
+            }
+
+            pivot(pivotRow, pivotColumn);
+        }
+    }
+
+    private void pivot(int pivotRow, int pivotColumn){
+        int start = pivotRow * this.width;
+        double pivot = this.tableau[start + pivotColumn];
+
+        for(int column = 0; column < this.width; ++column){
+            this.tableau[start + column] /= pivot;
+        }
+
+        for(int row = 0; row <= this.rows; ++row){
+            double factor = this.tableau[row * this.width + pivotColumn];
+
+            if(row == pivotRow || factor == 0){
+                continue;
+            }
+
+            for(int column = 0; column < this.width; ++column){
+                this.tableau[row * this.width + column] -= factor * this.tableau[start + column];
+            }
+        }
+
+        this.basic[pivotRow] = pivotColumn;
+    }
+
+    private static double snap(double value){
+        double rounded = Math.rint(value);
+
+        return Math.abs(value - rounded) < TOLERANCE ? rounded : value;
+    }
+
+    private static int[] grow(int[] array, int size){
+        return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+    }
+}
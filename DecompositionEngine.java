@@ -0,0 +1,13 @@
+/**
+ A strategy that decomposes one hypergraph, so callers can pick between the top-down search of HDSolver, the split
+ front-end of SplitSolver and the balanced separators of BalancedSeparatorSolver.
+ */
+public interface DecompositionEngine<T extends Comparable<? super T>> {
+
+    /**
+     Returns a decomposition of the hypergraph of width at most the given one, or null if the engine finds none. It
+     is a generalized one, see HypertreeDecomposition.isGeneralized, for the engines that do not keep the special
+     condition.
+     */
+    HypertreeDecomposition<T> findDecomposition(int width);
+}
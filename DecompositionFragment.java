@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ The decomposition of one subproblem: its bags and guards in preorder, the root of the subproblem first. A fragment
+ copies the bags and guards it is given and only hands out copies of its bags and read-only views of its guards, so
+ it is never modified once built and can be cached and shared between threads.
+ */
+public class DecompositionFragment {
+    private final ArrayList<IntBitSet> bags;
+    private final ArrayList<Set<Integer>> guards;
+
+    //parents[i] is the position in the lists of the parent of node i, -1 for the root
+    private final int[] parents;
+
+    //the largest number of edges in a guard
+    public final int width;
+
+    public DecompositionFragment(List<IntBitSet> bags, List<Set<Integer>> guards, int[] parents){
+        this.bags = new ArrayList<>();
+        this.guards = new ArrayList<>();
+        this.parents = parents.clone();
+
+        for(IntBitSet bag : bags){
+            this.bags.add(bag.copy());
+        }
+
+        for(Set<Integer> guard : guards){
+            this.guards.add(frozen(guard));
+        }
+
+        this.width = widthOf(this.guards);
+    }
+
+    /**
+     A node with the given bag and guards, followed by the decompositions of its children.
+     */
+    public DecompositionFragment(IntBitSet bag, Set<Integer> guard, List<DecompositionFragment> children){
+        this.bags = new ArrayList<>();
+        this.guards = new ArrayList<>();
+
+        int size = 1;
+
+        for(DecompositionFragment child : children){
+            size += child.bags.size();
+        }
+
+        this.parents = new int[size];
+        this.parents[0] = -1;
+        this.bags.add(bag.copy());
+        this.guards.add(frozen(guard));
+
+        //the bags and guards of the children are never modified, so they are shared rather than copied again
+        for(DecompositionFragment child : children){
+            int offset = this.bags.size();
+
+            for(int node = 0; node < child.parents.length; ++node){
+                this.parents[offset + node] = node == 0 ? 0 : offset + child.parents[node];
+            }
+
+            this.bags.addAll(child.bags);
+            this.guards.addAll(child.guards);
+        }
+
+        this.width = widthOf(this.guards);
+    }
+
+    private static Set<Integer> frozen(Set<Integer> guard){
+        return Collections.unmodifiableSet(new HashSet<>(guard));
+    }
+
+    public int size(){
+        return this.parents.length;
+    }
+
+    /**
+     A copy of the bag of the node.
+     */
+    public IntBitSet bag(int node){
+        return this.bags.get(node).copy();
+    }
+
+    /**
+     The guard of the node, as a read-only view.
+     */
+    public Set<Integer> guard(int node){
+        return this.guards.get(node);
+    }
+
+    public int parent(int node){
+        return this.parents[node];
+    }
+
+    /**
+     A copy of the parent of every node.
+     */
+    public int[] parents(){
+        return this.parents.clone();
+    }
+
+    private static int widthOf(List<Set<Integer>> guards){
+        int width = 0;
+
+        for(Set<Integer> guard : guards){
+            width = Math.max(width, guard.size());
+        }
+
+        return width;
+    }
+
+    /**
+     The vertices appearing in some bag.
+     */
+    public IntBitSet coveredVertices(int numberOfVertices){
+        IntBitSet covered = new IntBitSet(numberOfVertices);
+
+        for(IntBitSet bag : this.bags){
+            covered.or(bag);
+        }
+
+        return covered;
+    }
+
+    /**
+     Rough size of this fragment on the heap, used to keep the caches within their memory budget.
+     */
+    public long estimatedBytes(){
+        long bytes = 64 + 4L * this.parents.length;
+
+        for(IntBitSet bag : this.bags){
+            bytes += bag.estimatedBytes();
+        }
+
+        for(Set<Integer> guard : this.guards){
+            bytes += 48 + 32L * guard.size();
+        }
+
+        return bytes;
+    }
+}
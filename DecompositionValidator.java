@@ -0,0 +1,284 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ Checks that a HypertreeDecomposition really is a hypertree decomposition of a hypergraph:
+ 1. every bag lies inside the vertices of its guard;
+ 2. every edge lies inside some bag;
+ 3. the nodes holding a vertex form a connected subtree;
+ 4. the special condition: the vertices of the guard of a node that appear below it are in its bag, unless the
+    decomposition is a generalized one, see HypertreeDecomposition.isGeneralized.
+ Bags are turned into bitsets of the compact hypergraph, and the nodes holding every vertex are indexed once, so an
+ edge is only compared with the bags holding its first vertex. Each condition is checked independently per node, per
+ edge or per vertex, so given a pool the checks are split into ranges run in parallel. The reported violation is
+ always the first one in the order above, whatever the pool.
+ */
+public final class DecompositionValidator {
+
+    //below this many items a range is checked directly instead of being split further
+    private static final int SEQUENTIAL_RANGE = 256;
+
+    private DecompositionValidator(){
+    }
+
+    public static <T extends Comparable<? super T>> boolean isValid(Hypergraph<T> hypergraph, HypertreeDecomposition<T> decomposition){
+        return firstViolation(hypergraph, decomposition, null) == null;
+    }
+
+    public static <T extends Comparable<? super T>> String firstViolation(Hypergraph<T> hypergraph, HypertreeDecomposition<T> decomposition){
+        return firstViolation(hypergraph, decomposition, null);
+    }
+
+    /**
+     Describes the first broken condition with the node, edge or vertex where it happens, or returns null when the
+     decomposition is valid. The checks run on the pool when one is given.
+     */
+    public static <T extends Comparable<? super T>> String firstViolation(Hypergraph<T> hypergraph, HypertreeDecomposition<T> decomposition, ForkJoinPool pool){
+        return firstViolation(hypergraph, decomposition, pool, !decomposition.isGeneralized());
+    }
+
+    /**
+     Same as above, but checks the decomposition as a generalized one whatever it says it is, to tell whether a
+     hypertree decomposition is at least a valid generalized one.
+     */
+    public static <T extends Comparable<? super T>> String firstGeneralizedViolation(Hypergraph<T> hypergraph, HypertreeDecomposition<T> decomposition, ForkJoinPool pool){
+        return firstViolation(hypergraph, decomposition, pool, false);
+    }
+
+    private static <T extends Comparable<? super T>> String firstViolation(Hypergraph<T> hypergraph, HypertreeDecomposition<T> decomposition, ForkJoinPool pool, boolean specialCondition){
+        CompactHypergraph<T> compact = hypergraph.compact();
+        int size = decomposition.size();
+        IntBitSet[] bags = new IntBitSet[size];
+        IntBitSet[] guardVertices = new IntBitSet[size];
+
+        if(size == 0){
+            return compact.numberOfEdges == 0 ? null : "the decomposition has no node";
+        }
+
+        String violation = firstInRange(pool, size, node -> {
+            Set<T> bag = decomposition.bag(node);
+
+            bags[node] = compact.toIds(bag);
+
+            if(bags[node].cardinality() != bag.size()){
+                return "the bag of node " + node + " has vertices that are not in the hypergraph";
+            }
+
+            guardVertices[node] = new IntBitSet(compact.numberOfVertices);
+
+            for(int edge : decomposition.guard(node)){
+                if(edge < 0 || edge >= compact.numberOfEdges){
+                    return "the guard of node " + node + " has the unknown edge " + edge;
+                }
+
+                compact.orEdge(guardVertices[node], edge);
+            }
+
+            return bags[node].isSubsetOf(guardVertices[node]) ? null : "the bag of node " + node + " is not covered by its guard";
+        });
+
+        if(violation != null){
+            return violation;
+        }
+
+        int[][] occurrences = occurrences(compact, bags);
+
+        violation = firstEdgeInNoBag(pool, compact, bags, occurrences);
+
+        if(violation != null){
+            return violation;
+        }
+
+        //the nodes holding a vertex are connected exactly when only one of them has a parent without it
+        violation = firstInRange(pool, compact.numberOfVertices, vertex -> {
+            int tops = 0;
+
+            for(int node : occurrences[vertex]){
+                int parent = decomposition.parent(node);
+
+                if(parent < 0 || !bags[parent].contains(vertex)){
+                    tops ++;
+                }
+            }
+
+            return tops <= 1 ? null : "the nodes holding " + compact.vertex(vertex) + " are not connected";
+        });
+
+        if(violation != null || !specialCondition){
+            return violation;
+        }
+
+        IntBitSet[] below = verticesBelow(decomposition, bags);
+
+        return firstInRange(pool, size, node -> {
+            IntBitSet leaking = IntBitSet.intersection(guardVertices[node], below[node]);
+            leaking.andNot(bags[node]);
+
+            return leaking.isEmpty() ? null : "node " + node + " breaks the special condition on " + compact.toLabels(leaking);
+        });
+    }
+
+    /**
+     Checks the flat output of FHDSolver: every edge lies inside some bag and the guard of every bag puts a weight of
+     at least 1 on each of its vertices. The lists carry no tree, so connectedness cannot be checked. Describes the
+     first violation, or returns null.
+     */
+    public static String firstFractionalViolation(Hypergraph<Integer> hypergraph, List<Set<Integer>> bags, List<HashMap<Integer, Double>> guards, ForkJoinPool pool){
+        CompactHypergraph<Integer> compact = hypergraph.compact();
+        IntBitSet[] bagSets = new IntBitSet[bags.size()];
+
+        if(bags.size() != guards.size()){
+            return "there are " + bags.size() + " bags and " + guards.size() + " guards";
+        }
+
+        String violation = firstInRange(pool, bags.size(), node -> {
+            double[] weights = new double[compact.numberOfVertices];
+
+            bagSets[node] = compact.toIds(bags.get(node));
+
+            for(Map.Entry<Integer, Double> weight : guards.get(node).entrySet()){
+                if(weight.getKey() < 0 || weight.getKey() >= compact.numberOfEdges){
+                    return "the guard of node " + node + " has the unknown edge " + weight.getKey();
+                }
+
+                for(int index = compact.edgeOffsets[weight.getKey()]; index < compact.edgeOffsets[weight.getKey() + 1]; ++index){
+                    weights[compact.edgeVertices[index]] += weight.getValue();
+                }
+            }
+
+            for(int vertex = bagSets[node].nextSetBit(0); vertex >= 0; vertex = bagSets[node].nextSetBit(vertex + 1)){
+                if(weights[vertex] < 1 - 1e-6){
+                    return "the guard of node " + node + " puts only " + weights[vertex] + " on " + compact.vertex(vertex);
+                }
+            }
+
+            return null;
+        });
+
+        if(violation != null){
+            return violation;
+        }
+
+        int[][] occurrences = occurrences(compact, bagSets);
+
+        return firstEdgeInNoBag(pool, compact, bagSets, occurrences);
+    }
+
+    //an edge can only lie in the bags holding its first vertex
+    private static String firstEdgeInNoBag(ForkJoinPool pool, CompactHypergraph<?> compact, IntBitSet[] bags, int[][] occurrences){
+        return firstInRange(pool, compact.numberOfEdges, edge -> {
+            if(compact.edgeSize(edge) == 0){
+                return null;
+            }
+
+            int first = compact.edgeVertices[compact.edgeOffsets[edge]];
+
+            for(int node : occurrences[first]){
+                if(compact.edgeSubsetOf(edge, bags[node])){
+                    return null;
+                }
+            }
+
+            return "edge " + edge + " is in no bag";
+        });
+    }
+
+    //occurrences[v] lists the nodes whose bag holds v, in increasing order
+    private static int[][] occurrences(CompactHypergraph<?> compact, IntBitSet[] bags){
+        int[] counts = new int[compact.numberOfVertices];
+
+        for(IntBitSet bag : bags){
+            for(int vertex = bag.nextSetBit(0); vertex >= 0; vertex = bag.nextSetBit(vertex + 1)){
+                counts[vertex] ++;
+            }
+        }
+
+        int[][] occurrences = new int[compact.numberOfVertices][];
+
+        for(int vertex = 0; vertex < compact.numberOfVertices; ++vertex){
+            occurrences[vertex] = new int[counts[vertex]];
+            counts[vertex] = 0;
+        }
+
+        for(int node = 0; node < bags.length; ++node){
+            for(int vertex = bags[node].nextSetBit(0); vertex >= 0; vertex = bags[node].nextSetBit(vertex + 1)){
+                occurrences[vertex][counts[vertex] ++] = node;
+            }
+        }
+
+        return occurrences;
+    }
+
+    //the vertices in the bags of the subtree of every node
+    private static IntBitSet[] verticesBelow(HypertreeDecomposition<?> decomposition, IntBitSet[] bags){
+        IntBitSet[] below = new IntBitSet[bags.length];
+
+        for(int node = 0; node < bags.length; ++node){
+            below[node] = bags[node].copy();
+        }
+
+        //children come after their parent, so going backwards every subtree is complete before its parent is reached
+        for(int node = bags.length - 1; node > 0; --node){
+            below[decomposition.parent(node)].or(below[node]);
+        }
+
+        return below;
+    }
+
+    private interface Check {
+        String check(int index);
+    }
+
+    //the violation found for the smallest index, or null
+    private static String firstInRange(ForkJoinPool pool, int size, Check check){
+        if(pool == null || size <= SEQUENTIAL_RANGE){
+            return new RangeTask(check, 0, size).compute();
+        }
+
+        return pool.invoke(new RangeTask(check, 0, size));
+    }
+
+    private static final class RangeTask extends RecursiveTask<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final Check check;
+        private final int from;
+        private final int to;
+
+        RangeTask(Check check, int from, int to){
+            this.check = check;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected String compute(){
+            if(this.to - this.from <= SEQUENTIAL_RANGE){
+                String violation;
+
+                for(int index = this.from; index < this.to; ++index){
+                    violation = this.check.check(index);
+
+                    if(violation != null){
+                        return violation;
+                    }
+                }
+
+                return null;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            RangeTask right = new RangeTask(this.check, middle, this.to);
+
+            right.fork();
+
+            String violation = new RangeTask(this.check, this.from, middle).compute();
+
+            //the right half has to finish before the task returns, even when its answer is not needed
+            String rightViolation = right.join();
+
+            return violation != null ? violation : rightViolation;
+        }
+    }
+}
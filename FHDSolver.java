@@ -6,158 +6,167 @@ import java.util.*;
 public class FHDSolver {
 
     private Hypergraph<Integer> hypergraph;
+    private final CompactHypergraph<Integer> compact;
     private final float limitK;
     private final int cBound;
     private final float epsilon;
 
+    //subproblems known to have no decomposition, keyed by component, domain of W and connector
+    private final BoundedCache<SubproblemKey, Boolean> failedSubproblems;
+
+    //the fractional edge cover of every set W solved so far, keyed by its vertex ids. The same W comes back with every
+    //guard it is tried with and in every branch whose domain holds it, so the LP is solved only once for each
+    private final BoundedCache<IntBitSet, FractionalCover> fractionalCovers;
+
+    //the LPs are solved one after the other, each starting from the basis of the previous one, as consecutive sets W
+    //differ by few vertices
+    private final CoverSimplex simplex = new CoverSimplex();
+    private int[] lastBasis = null;
+
+    private final CoverBounds.Statistics coverStatistics = new CoverBounds.Statistics();
+
+    //the vertices lying in two edges or more, the only ones W is drawn from. A vertex in a single edge forces that
+    //edge to a weight of 1, which SolverFED rejects, so a W holding one never passes
+    private final IntBitSet sharedVertices;
+
     /**
      Constructor takes a hypergraph class as parameter and the maximum bound K for the hypergraph decomposition
      */
     public FHDSolver(Hypergraph<Integer> hypergraph, float limitK, int cBound, float epsilon){
+        this(hypergraph, limitK, cBound, epsilon, HDSolver.DEFAULT_CACHE_ENTRIES, HDSolver.DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     Same as above, but the caches of failed subproblems and of fractional covers together keep at most
+     maximumCachedEntries entries and maximumCachedBytes estimated bytes, evicting the least recently used ones.
+     */
+    public FHDSolver(Hypergraph<Integer> hypergraph, float limitK, int cBound, float epsilon, int maximumCachedEntries, long maximumCachedBytes){
         this.hypergraph = hypergraph;
+        this.compact = hypergraph.compact();
         this.limitK = limitK;
         this.cBound = cBound;
         this.epsilon = epsilon;
+        this.sharedVertices = this.compact.sharedVertices();
+        this.failedSubproblems = new BoundedCache<>(maximumCachedEntries / 2, maximumCachedBytes / 2, (key, failed) -> key.estimatedBytes());
+        this.fractionalCovers = new BoundedCache<>(maximumCachedEntries - maximumCachedEntries / 2, maximumCachedBytes - maximumCachedBytes / 2,
+                (w, cover) -> w.estimatedBytes() + cover.estimatedBytes());
     }
 
-    public ArrayList<Integer> getCommonVertices(int edgeIndex, Set<Integer> verticesOfParent){
-        ArrayList<Integer> sol = new ArrayList<>();
-
-        for(int vertex : this.hypergraph.hyperedges.get(edgeIndex).keySet()){
-            if( verticesOfParent.contains(vertex)){
-                sol.add(vertex);
-            }
-        }
-
-        return sol;
+    public BoundedCache<SubproblemKey, Boolean> getFailureCache(){
+        return this.failedSubproblems;
     }
 
-    public boolean checkMutualVerticesConstraint(Component<Integer> componentFather, Set<Integer> verticesOfParent, HashSet<Integer> verticesOfGuards){
-        ArrayList<Integer> commonVertices;
-
-        boolean notCommon = true;
+    public BoundedCache<IntBitSet, FractionalCover> getCoverCache(){
+        return this.fractionalCovers;
+    }
 
-        if(verticesOfParent.size() > 0) {
-            for (int edgeIndex : componentFather.indicesOfEdges) {
+    public CoverBounds.Statistics getCoverStatistics(){
+        return this.coverStatistics;
+    }
 
-                //We get the common vertices of the edge covering some part of the component and the bag of edges of the father
-                commonVertices = getCommonVertices(edgeIndex, verticesOfParent);
+    /**
+     The connector of a component: the vertices of its edges that are also in the parent node.
+     */
+    public IntBitSet getConnector(Component componentFather, IntBitSet verticesOfParent){
+        IntBitSet connector = this.compact.verticesOfEdges(componentFather.indicesOfEdges);
+        connector.and(verticesOfParent);
 
-                if (commonVertices.size() > 0){ notCommon = false; }
+        return connector;
+    }
 
-                //and we check if they are included in the current set of guards
-                for (Integer vertex : commonVertices) {
-                    if (!verticesOfGuards.contains(vertex)) {
-                        return false;
-                    }
-                }
-            }
-        }
+    public boolean checkMutualVerticesConstraint(Component componentFather, IntBitSet connector, boolean hasParent, IntBitSet verticesOfGuards){
 
-        if(notCommon && verticesOfParent.size() > 0){
+        //The common vertices of the edges covering some part of the component and the parent must exist and be included in the guards
+        if(hasParent && (connector.isEmpty() || !connector.isSubsetOf(verticesOfGuards))){
             return false;
         }
 
         // The intersection of the vertices of the component with the vertices of the guards must be not null
-        for(Integer vertex : verticesOfGuards){
-            if(componentFather.vertices.contains(vertex)){
-                return true;
-            }
-        }
-
-        return false;
+        return verticesOfGuards.intersects(componentFather.vertices);
     }
 
-    public ArrayList<Component<Integer>> getPossibleComponents(Component<Integer> componentFather, Set<Integer> verticesOfGuards){
-
-        HashMap<Integer, Boolean> explored = new HashMap<>();
-        ArrayList<Component<Integer>> allComponents = new ArrayList<>();
-        Component<Integer> partialSolution;
-        boolean isOK;
-
-
-        for(Integer vertex : this.hypergraph.vertexToHyperedge.keySet()){
-            if( !explored.containsKey(vertex) && !verticesOfGuards.contains(vertex) ) {
-
-                partialSolution = new Component<>();
-                DFS(vertex, partialSolution, verticesOfGuards, explored);
-
-                //Check if the new component is included in the parent one
+    public ArrayList<Component> getPossibleComponents(Component componentFather, IntBitSet verticesOfGuards){
 
-                isOK = true;
-
-                for (Integer vertexInPartial : partialSolution.vertices) {
-                    if ( !componentFather.vertices.contains(vertexInPartial) ) {
-                        isOK = false;
-                        break;
-                    }
-                }
+        //the guard vertices split the component. Its border is covered by the guards, so nothing found here can leave it
+        return ComponentFinder.split(this.compact, componentFather.vertices, verticesOfGuards);
+    }
 
-                if (isOK) {
-                    allComponents.add(partialSolution);
-                }
-            }
-        }
 
+    public boolean fracDecomp(Component componentFather, // comp
+                              Set<Integer> treeDecompFather, //set vertices
+                              Set<Integer> guardsFather, //set of edges
+                              Set<Integer> bagsVerticesFather, // set of vertices
+                              ArrayList<Set<Integer>> bags, // arrayList of sets of vertices
+                              ArrayList<HashMap<Integer, Double>> guards, // arrayList of sets of edges
+                              Set<Integer> coveredVertices){ //set of vertices
 
-        return allComponents;
+        return fracDecomp(componentFather, treeDecompFather, guardsFather, bagsVerticesFather, bags, guards, coveredVertices,
+                SearchBudget.unlimited()) == SearchBudget.Outcome.YES;
     }
 
-    public void DFS(Integer vertex,
-                     Component<Integer> partialSolution,
-                     Set<Integer> verticesOfGuards,
-                     HashMap<Integer, Boolean> explored){
-
-        if( explored.containsKey(vertex) ) {
-            return;
+    /**
+     Same as above, but gives up once the budget runs out, or once it is cancelled from another thread, and answers
+     UNKNOWN then. The lists are only filled in for YES.
+     */
+    public SearchBudget.Outcome fracDecomp(Component componentFather,
+                                           Set<Integer> treeDecompFather,
+                                           Set<Integer> guardsFather,
+                                           Set<Integer> bagsVerticesFather,
+                                           ArrayList<Set<Integer>> bags,
+                                           ArrayList<HashMap<Integer, Double>> guards,
+                                           Set<Integer> coveredVertices,
+                                           SearchBudget budget){
+
+        //the whole hypergraph cannot be decomposed below its lower bound, so there is nothing to search
+        if(guardsFather.isEmpty() && treeDecompFather.isEmpty() && componentFather.vertices.cardinality() == this.compact.numberOfVertices
+                && WidthLowerBounds.fractionalHypertreeWidth(this.compact) > this.limitK + this.epsilon + 1e-6){
+            return SearchBudget.Outcome.NO;
         }
 
-        explored.put(vertex, true);
+        int[] guardsFatherArray = new int[guardsFather.size()];
+        int position = 0;
 
-        //We need to explore all the nodes we can get to from this one
-        for (int edge : this.hypergraph.vertexToHyperedge.get(vertex).keySet()){
-            for (Integer neighVertex : this.hypergraph.hyperedges.get(edge).keySet()){
-
-                partialSolution.indicesOfEdges.add(edge);
-
-                if(!verticesOfGuards.contains(neighVertex)){
-
-                    partialSolution.vertices.add(neighVertex);
-
-                    DFS(neighVertex,
-                            partialSolution,
-                            verticesOfGuards,
-                            explored);
-
-                }
-            }
+        for(int edge : guardsFather){
+            guardsFatherArray[position ++] = edge;
         }
-    }
-
-
-    public ArrayList<Integer> getPermForW(GetSets permutationGeneratorW, ArrayList<Integer> domainForW){
-
-        ArrayList<Integer> solution = new ArrayList<>();
-        int[] indices = permutationGeneratorW.getNextPerm(domainForW);
 
-        if (indices == null){ return null; }
+        IntBitSet covered = this.compact.toIds(coveredVertices);
+        ArrayList<IntBitSet> bagsIds = new ArrayList<>();
+
+        boolean solution = fracDecomp(componentFather,
+                this.compact.toIds(treeDecompFather),
+                guardsFatherArray.length > 0,
+                this.compact.verticesOfEdges(guardsFatherArray),
+                this.compact.toIds(bagsVerticesFather),
+                bagsIds,
+                guards,
+                covered,
+                budget);
+
+        if(!solution){
+            return budget.isCancelled() ? SearchBudget.Outcome.UNKNOWN : SearchBudget.Outcome.NO;
+        }
 
-        for(int index : indices){
-            solution.add(index);
+        for(IntBitSet bag : bagsIds){
+            bags.add(this.compact.toLabels(bag));
         }
 
-        return solution;
+        coveredVertices.clear();
+        coveredVertices.addAll(this.compact.toLabels(covered));
+
+        return SearchBudget.Outcome.YES;
     }
 
-    public boolean fracDecomp(Component<Integer> componentFather, // comp
-                              Set<Integer> treeDecompFather, //set vertices
-                              Set<Integer> guardsFather, //set of edges
-                              Set<Integer> bagsVerticesFather, // set of vertices
-                              ArrayList<Set<Integer>> bags, // arrayList of sets of vertices
-                              ArrayList<HashMap<Integer, Double>> guards, // arrayList of sets of edges
-                              Set<Integer> coveredVertices){ //set of vertices
+    private boolean fracDecomp(Component componentFather, // comp
+                               IntBitSet treeDecompFather, //set vertices
+                               boolean hasFather, //whether there is a node above
+                               IntBitSet verticesOfGuardsFather, //set of vertices of the guards of the father
+                               IntBitSet bagsVerticesFather, // set of vertices
+                               ArrayList<IntBitSet> bags, // arrayList of sets of vertices
+                               ArrayList<HashMap<Integer, Double>> guards, // arrayList of sets of edges
+                               IntBitSet coveredVertices, //set of vertices
+                               SearchBudget budget){
 
-        int[] currentPermutation;
         int limit = 0;
 
         if ((int) this.limitK < this.limitK){
@@ -167,162 +176,197 @@ public class FHDSolver {
             limit = (int)this.limitK + (int) this.epsilon;
         }
 
-        GetSets permutationGeneratorBag = new GetSets(limit, componentFather.indicesOfEdges.size());
+        IntBitSet reunionForW = IntBitSet.union(verticesOfGuardsFather, componentFather.vertices);
+        reunionForW.or(treeDecompFather);
 
-        currentPermutation = permutationGeneratorBag.getNextPerm();
+        IntBitSet verticesOfParent = IntBitSet.union(verticesOfGuardsFather, treeDecompFather);
+        IntBitSet connector = getConnector(componentFather, verticesOfParent);
+        boolean hasParent = !verticesOfParent.isEmpty();
 
-        Set<Integer> reunionForW = new HashSet<>();
+        //whether the component can be decomposed only depends on the component, the domain of W and the connector
+        SubproblemKey key = new SubproblemKey(hasParent, componentFather.indicesOfEdges, componentFather.vertices, reunionForW, connector);
 
-        for(int edge : guardsFather){
-            reunionForW.addAll(this.hypergraph.hyperedges.get(edge).keySet());
+        if(this.failedSubproblems.contains(key)){
+            return false;
         }
 
-        reunionForW.addAll(componentFather.vertices);
-        reunionForW.addAll(treeDecompFather);
-
-        GetSets permutationGeneratorW;
-
-        ArrayList<Integer> currentPermW;
-
-        //I need to get them as an array so I can iterate through them
-        Integer[] indicesOfedges = componentFather.indicesOfEdges.toArray(Integer[]::new);
+        //the guards are enumerated directly over the indices of the edges in the current component, and the sets W over
+        //the domain of W, which does not change between the guards we try. W only takes vertices lying in two edges or
+        //more, see sharedVertices. W is not narrowed to unions of edge intersections: its vertices inside the guard
+        //edges add nothing to the bag, and a bag needs only part of an intersection, so whole intersections would miss
+        //some decompositions
+        GetSets permutationGeneratorBag = new GetSets(0, limit, componentFather.indicesOfEdges.toArray());
+        GetSets permutationGeneratorW = new GetSets(0, this.cBound, IntBitSet.intersection(reunionForW, this.sharedVertices).toArray());
 
         // It goes through all the combinations of guards and W sets
-        while(currentPermutation != null) {
-
-            //iterate through the indices of the indices and get the direct indices of hyperedges
-            for(int index = 0; index < currentPermutation.length; ++index){
-                currentPermutation[index] = indicesOfedges[currentPermutation[index]];
-            }
+        while(permutationGeneratorBag.next()) {
 
-            permutationGeneratorW = new GetSets(this.cBound, reunionForW.size());
-            currentPermW = getPermForW(permutationGeneratorW, new ArrayList<>(reunionForW));
+            budget.countGuardCandidate();
+            permutationGeneratorW.reset();
 
+            while (permutationGeneratorW.next()) {
 
-            while (currentPermW != null) {
+                //a failure seen after the budget ran out may come from a branch that gave up, so it is not cached
+                if(budget.isCancelled()){
+                    return false;
+                }
 
                 if( fracDecomp(componentFather,
-                            treeDecompFather,
-                            guardsFather,
+                            hasFather,
+                            hasParent,
+                            connector,
                             bagsVerticesFather,
-                            currentPermutation,
-                            currentPermW,
+                            permutationGeneratorBag.current(),
+                            permutationGeneratorBag.size(),
+                            permutationGeneratorW.current(),
+                            permutationGeneratorW.size(),
                             bags,
                             guards,
-                            coveredVertices)){
+                            coveredVertices,
+                            budget)){
                     return true;
                 }
-                currentPermW = getPermForW(permutationGeneratorW, new ArrayList<>(reunionForW));
             }
-            currentPermutation = permutationGeneratorBag.getNextPerm();
+        }
+
+        if(!budget.isCancelled()){
+            this.failedSubproblems.put(key, Boolean.TRUE);
         }
 
         return false;
     }
 
-    public boolean fracDecomp(Component<Integer> componentFather, // comp
-                              Set<Integer> treeDecompFather, //set vertices
-                              Set<Integer> guardsFather, //set of edges
-                              Set<Integer> bagsVerticesFather, // set of vertices
-                              int[] currentPermutation, //array of  edges
-                              ArrayList<Integer> currentPermW, //arraylist of vertices
-                              ArrayList<Set<Integer>> bags, // arrayList of sets of vertices
-                              ArrayList<HashMap<Integer, Double>> guards, // arrayList of sets of edges
-                              Set<Integer> coveredVertices){ //set of vertices
+    private boolean fracDecomp(Component componentFather, // comp
+                               boolean hasFather, //whether there is a node above
+                               boolean hasParent, //whether the parent node has any vertex
+                               IntBitSet connector, //set of vertices shared with the parent
+                               IntBitSet bagsVerticesFather, // set of vertices
+                               int[] currentPermutation, //array of  edges
+                               int guardSize, //number of edges used from currentPermutation
+                               int[] currentPermW, //array of vertex ids
+                               int wSize, //number of vertices used from currentPermW
+                               ArrayList<IntBitSet> bags, // arrayList of sets of vertices
+                               ArrayList<HashMap<Integer, Double>> guards, // arrayList of sets of edges
+                               IntBitSet coveredVertices, //set of vertices
+                               SearchBudget budget){
 
         // 1 --> guess a set S for the guards of this node, we'll go through all possible combinations of at max K edges as guards, starting from k = 1
         //I also need to go through all the sets for W, and need to compute V(R) U Wr U Cr
 
-        if(currentPermutation.length > this.limitK + this.epsilon){
+        if(guardSize > this.limitK + this.epsilon){
             return false;
         }
 
-        ArrayList<Component<Integer>> possibleComponentsForThisNode;
-        Set<Integer> permAsSet;
-        Set<Integer> treeDecompSet;
-        permAsSet = new HashSet<>();
-        HashSet<Integer> verticesOfGuards = new HashSet<>();
+        ArrayList<Component> possibleComponentsForThisNode;
+        IntBitSet treeDecompSet = new IntBitSet(this.compact.numberOfVertices);
 
-        //We need to get the vertices of the guards
-        for (int edge : currentPermutation) {
-            verticesOfGuards.addAll(this.hypergraph.hyperedges.get(edge).keySet());
+        for(int index = 0; index < wSize; ++index){
+            treeDecompSet.add(currentPermW[index]);
         }
 
-        verticesOfGuards.addAll(currentPermW);
-
-        HashSet<Integer> verticesOfParent = new HashSet<>();
-
-        for(int edge : guardsFather){
-            verticesOfParent.addAll(this.hypergraph.hyperedges.get(edge).keySet());
-        }
-        verticesOfParent.addAll(treeDecompFather);
+        //We need to get the vertices of the guards
+        IntBitSet verticesOfGuardEdges = this.compact.verticesOfEdges(currentPermutation, guardSize);
+        IntBitSet verticesOfGuards = IntBitSet.union(verticesOfGuardEdges, treeDecompSet);
 
         HashMap<Integer, Double> newGuard = new HashMap<>();
 
-        for (int edge : currentPermutation) {
-            newGuard.put(edge, 1.0);
+        for (int index = 0; index < guardSize; ++index) {
+            newGuard.put(currentPermutation[index], 1.0);
         }
 
         //2.a --> we need to check if there is such a decomposition
-        if( !SolverFED.solveForHypergraph(this.hypergraph, this.limitK, this.epsilon, newGuard, currentPermW) ) {
-            return false;
+        if(wSize > 0){
+            FractionalCover cover = checkedCover(treeDecompSet, currentPermW, wSize, newGuard.size(), budget);
+
+            if(cover == null || !SolverFED.fits(cover, this.limitK, this.epsilon, newGuard)){
+                return false;
+            }
         }
 
         //2.b and 2.c
-        if ( !checkMutualVerticesConstraint(componentFather, verticesOfParent, verticesOfGuards) ){
+        if ( !checkMutualVerticesConstraint(componentFather, connector, hasParent, verticesOfGuards) ){
             return false;
         }
 
 
+        int firstBag = bags.size();
         guards.add(newGuard);
-        HashSet<Integer> newBag = new HashSet<>();
+        IntBitSet newBag = verticesOfGuards.copy();
 
-        if(guardsFather.size() == 0){
-            newBag.addAll(verticesOfGuards);
+        if(hasFather){
+            newBag.and(IntBitSet.union(componentFather.vertices, bagsVerticesFather));
         }
-        else{
-            Set<Integer> reunionComponentBagFather = new HashSet<>();
-            reunionComponentBagFather.addAll(componentFather.vertices);
-            reunionComponentBagFather.addAll(bagsVerticesFather);
 
-            for(Integer vertex : reunionComponentBagFather){
-                if(verticesOfGuards.contains(vertex)){
-                    newBag.add(vertex);
-                }
+        bags.add(newBag);
+        coveredVertices.or(newBag);
+
+        //3 --> We need to generate all the possible components left by the guards
+        possibleComponentsForThisNode = getPossibleComponents(componentFather, verticesOfGuards);
+
+        for (Component thisComponent : possibleComponentsForThisNode) {
+
+            if ( !fracDecomp(thisComponent, treeDecompSet, guardSize > 0, verticesOfGuardEdges, newBag, bags, guards, coveredVertices, budget) ){
+
+                //drop this node together with whatever the children solved before the failing one
+                bags.subList(firstBag, bags.size()).clear();
+                guards.subList(firstBag, guards.size()).clear();
+                coveredVertices.andNot(newBag);
+
+                return false;
             }
         }
 
-        bags.add(newBag);
-        coveredVertices.addAll(newBag);
+        return true;
+    }
 
-        //if( coveredVertices.size() == this.hypergraph.vertexToHyperedge.size() ) {
-        //        return true;
-        //}
 
-        //3 --> We need to generate all the possible components using DFS
-        possibleComponentsForThisNode = getPossibleComponents(componentFather, verticesOfGuards);
+    /**
+     The cover of W to check against the guards, or null when it cannot fit next to guardSize edges of weight 1. The
+     cheap bounds settle the clear cases: a lower bound above the room left rejects W, and an upper cover within it
+     is used as it is when no optimal cover has an edge of weight 1. The other covers go to the LP.
+     */
+    private FractionalCover checkedCover(IntBitSet w, int[] wArray, int wSize, int guardSize, SearchBudget budget){
+        CoverBounds bounds = new CoverBounds(this.compact, wArray, wSize, w);
 
-        for (int edge : currentPermutation) {
-            permAsSet.add(edge);
+        //computed as in SolverFED.fits. Below the room the LP cover would only be rejected for a unit weight, which
+        //excludesUnitWeight rules out, so fits accepts the upper cover exactly when it would accept the LP one
+        float room = this.limitK + this.epsilon - guardSize;
+
+        if(bounds.lowerBound > room + 1e-9){
+            this.coverStatistics.record(bounds, -1);
+            return null;
         }
 
-        treeDecompSet = new HashSet<>(currentPermW);
+        if(bounds.upperCover.value <= room && bounds.excludesUnitWeight()){
+            this.coverStatistics.record(bounds, 1);
+            return bounds.upperCover;
+        }
 
-        for (Component<Integer> thisComponent : possibleComponentsForThisNode) {
+        this.coverStatistics.record(bounds, 0);
 
-            if ( !fracDecomp(thisComponent, treeDecompSet , permAsSet, newBag, bags, guards, coveredVertices) ){
+        return fractionalCover(w, wArray, wSize, budget);
+    }
 
-                bags.remove(bags.size() - 1);
-                guards.remove(guards.size() - 1);
-                coveredVertices.removeAll(newBag);
+    //the cover of W from the cache, or from a new LP unless that call is one more than the budget allows
+    private FractionalCover fractionalCover(IntBitSet w, int[] wArray, int wSize, SearchBudget budget){
+        FractionalCover cover = this.fractionalCovers.get(w);
 
-                return false;
-            }
+        if(cover != null){
+            return cover;
         }
 
-        return true;
-    }
+        budget.countLpCall();
+
+        if(budget.isCancelled()){
+            return null;
+        }
 
+        cover = SolverFED.fractionalCover(this.compact, wArray, wSize, this.simplex, this.lastBasis);
+        this.lastBasis = this.simplex.basis();
+        this.fractionalCovers.put(w.copy(), cover);
+
+        return cover;
+    }
 
     public static void main(String[] args){
 
@@ -559,12 +603,7 @@ public class FHDSolver {
 
         FHDSolver mySolver = new FHDSolver(myHypergraph, (float) 2.5, 3, (float) 0.1);
 
-        Component<Integer> firstComponent = new Component<>();
-        firstComponent.vertices.addAll(myHypergraph.vertexToHyperedge.keySet());
-
-        for(int index = 0; index < myHypergraph.hyperedges.size(); ++index){
-            firstComponent.indicesOfEdges.add(index);
-        }
+        Component firstComponent = Component.whole(myHypergraph.compact());
 
         Set<Integer> treedecompFather = new HashSet<>();
         ArrayList<Set<Integer>> bags = new ArrayList<>();
@@ -0,0 +1,27 @@
+/**
+ The optimal fractional edge cover of a set of vertices W, as computed by SolverFED: the edges of the hypergraph with
+ a positive weight, in the order the LP reported them, and the total weight. It only depends on W, so it is cached
+ by FHDSolver and reused by every guard tried together with the same W. Covers are never modified once built, so
+ they can be shared between threads.
+ */
+public final class FractionalCover {
+
+    //edges[i] is an edge index of the whole hypergraph, with weight weights[i]. An edge may come up more than once
+    public final int[] edges;
+    public final double[] weights;
+    public final double value;
+
+    //whether some edge has a weight of exactly 1, which SolverFED rejects
+    public final boolean hasUnitWeight;
+
+    public FractionalCover(int[] edges, double[] weights, double value, boolean hasUnitWeight){
+        this.edges = edges;
+        this.weights = weights;
+        this.value = value;
+        this.hasUnitWeight = hasUnitWeight;
+    }
+
+    public long estimatedBytes(){
+        return 48 + 4L * this.edges.length + 8L * this.weights.length;
+    }
+}
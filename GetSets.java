@@ -1,166 +1,233 @@
-import java.util.List;
-import java.util.ArrayList;
-
+import java.util.Arrays;
+
+/**
+ Walks the subsets of a domain of ints in place: first by increasing size, from minimumSize up to maximumSize, and in
+ lexicographic order of positions inside each size. The current subset is kept in an internal array, so moving to the
+ next one does not allocate anything. Every subset also has a rank in this order, and unrank jumps straight to a
+ given rank, so ranges of ranks can be handed to different threads.
+ */
 public class GetSets{
 
-    private List<Integer> currentStep = new ArrayList<>();
+    private final int[] domain;
+    private final int minimumSize;
     private final int maximumSize;
-    private final int numberOfEdges;
-    private boolean firstRun = true;
+
+    //positions in the domain of the elements of the current subset, and the elements themselves
+    private final int[] positions;
+    private final int[] current;
+    private int size;
+    private long rank;
+
+    private boolean started = false;
+    private boolean exhausted = false;
+
+    //binomial[n][k] for n up to the size of the domain, saturated at Long.MAX_VALUE
+    private final long[][] binomial;
 
     /**
+     Enumerates the subsets of {0, ..., numberOfEdges - 1} of size at most maximumSize, starting with the empty one.
      *
      * @param maximumSize
      * @param numberOfEdges
      */
     public GetSets(int maximumSize, int numberOfEdges){
-        this.maximumSize = maximumSize;
-        this.numberOfEdges = numberOfEdges;
+        this(0, maximumSize, identity(numberOfEdges));
     }
 
     /**
-        Returns the next permutation of size maximum K in increasing order.
+     Enumerates the subsets of the domain with size between minimumSize and maximumSize. The domain is not copied and
+     must not change while it is being enumerated.
      */
-    public int[] getNextPerm(){
+    public GetSets(int minimumSize, int maximumSize, int[] domain){
+        this.domain = domain;
+        this.minimumSize = minimumSize;
+        this.maximumSize = Math.min(maximumSize, domain.length);
+        this.positions = new int[Math.max(this.maximumSize, 0)];
+        this.current = new int[Math.max(this.maximumSize, 0)];
+        this.binomial = binomials(domain.length, Math.max(this.maximumSize, 0));
+    }
+
+    private static int[] identity(int length){
+        int[] solution = new int[length];
 
-        //We need an empty set of hyperedges with width 1 for FHD
-        if(this.firstRun){
-            this.firstRun = false;
-            return new int[]{};
+        for(int index = 0; index < length; ++index){
+            solution[index] = index;
         }
 
-        if( this.currentStep.size() == 0){
-            this.currentStep.add(0);
-            return new int[]{0};
+        return solution;
+    }
+
+    private static long[][] binomials(int n, int k){
+        long[][] solution = new long[n + 1][k + 1];
+
+        for(int row = 0; row <= n; ++row){
+            solution[row][0] = 1;
+
+            for(int column = 1; column <= Math.min(row, k); ++column){
+                long sum = solution[row - 1][column - 1] + (column <= row - 1 ? solution[row - 1][column] : 0);
+                solution[row][column] = sum < 0 ? Long.MAX_VALUE : sum;
+            }
         }
 
-        int level = this.currentStep.size() - 1;
-        int[] returnArray = new int[this.currentStep.size()];
+        return solution;
+    }
 
-        while (level >= 0){
-            for(int nextEdge = this.currentStep.get(level) + 1; nextEdge < this.numberOfEdges - (this.currentStep.size() - 1 - level); ++ nextEdge){
-                this.currentStep.set(level, nextEdge);
+    private long choose(int n, int k){
+        return k < 0 || k > n ? 0 : this.binomial[n][k];
+    }
 
-                // we need to reset the numbers at higher levels
+    /**
+     Moves to the next subset. Returns false once all of them were visited.
+     */
+    public boolean next(){
 
-                for(int higherLevel = level + 1; higherLevel < this.currentStep.size(); ++ higherLevel) {
-                    this.currentStep.set(higherLevel, this.currentStep.get(higherLevel - 1) + 1);
-                }
+        if(this.exhausted){
+            return false;
+        }
 
-                for (int index = 0; index < this.currentStep.size(); ++index) {
-                    returnArray[index] = this.currentStep.get(index);
-                }
+        if(!this.started){
+            this.started = true;
+            this.rank = 0;
 
-                return returnArray;
+            if(this.minimumSize > this.maximumSize){
+                this.exhausted = true;
+                return false;
             }
 
-            level --;
+            first(this.minimumSize);
+            return true;
         }
 
-        // If we get here, it means we exhausted the values for this number of levels and we need to increase it by one
+        int length = this.domain.length;
+        int level = this.size - 1;
 
-        if (this.currentStep.size() >= maximumSize || this.currentStep.size() >= this.numberOfEdges){
-            return null;
+        //find the last position that can still move to the right
+        while(level >= 0 && this.positions[level] == length - this.size + level){
+            level --;
         }
 
-        for(int index = 0; index < this.currentStep.size(); ++index){
-            this.currentStep.set(index, index);
-        }
+        if(level < 0){
 
-        this.currentStep.add(this.currentStep.size());
-        returnArray = new int[this.currentStep.size()];
+            // If we get here, it means we exhausted the values for this number of levels and we need to increase it by one
+            if(this.size >= this.maximumSize){
+                this.exhausted = true;
+                return false;
+            }
 
-        for (int index = 0; index < this.currentStep.size(); ++index) {
-            returnArray[index] = this.currentStep.get(index);
+            first(this.size + 1);
+        }
+        else{
+            this.positions[level] ++;
+            this.current[level] = this.domain[this.positions[level]];
+
+            // we need to reset the numbers at higher levels
+            for(int higherLevel = level + 1; higherLevel < this.size; ++higherLevel){
+                this.positions[higherLevel] = this.positions[higherLevel - 1] + 1;
+                this.current[higherLevel] = this.domain[this.positions[higherLevel]];
+            }
         }
 
-        return returnArray;
+        this.rank ++;
+        return true;
     }
 
-    /**
-        Returns the next permutation of size maximum K in increasing order.
-     */
-    public int[] getNextPerm(ArrayList<Integer> domain){
+    private void first(int newSize){
+        this.size = newSize;
 
-
-        if( this.firstRun){
-            this.firstRun = false;
-            return new int[]{};
-        }
-
-        if(this.maximumSize == 0){
-            return null;
+        for(int level = 0; level < newSize; ++level){
+            this.positions[level] = level;
+            this.current[level] = this.domain[level];
         }
+    }
 
-        if(this.currentStep.size() == 0){
-            this.currentStep.add(0);
-            return new int[]{domain.get(0)};
-        }
+    /**
+     Starts the enumeration over, so the same domain can be walked again without building a new enumerator.
+     */
+    public void reset(){
+        this.started = false;
+        this.exhausted = false;
+    }
 
-        int level = this.currentStep.size() - 1;
-        int[] returnArray = new int[this.currentStep.size()];
+    /**
+     The elements of the current subset are the first size() entries of the returned array. The array is reused by
+     the next call to next() or unrank().
+     */
+    public int[] current(){
+        return this.current;
+    }
 
-        while (level >= 0){
-            for(int nextEdge = this.currentStep.get(level) + 1; nextEdge < domain.size() - (this.currentStep.size() - 1 - level); ++ nextEdge){
-                this.currentStep.set(level, nextEdge);
+    public int size(){
+        return this.size;
+    }
 
-                // we need to reset the numbers at higher levels
+    /**
+     The position of the current subset in the enumeration order, starting from 0.
+     */
+    public long rank(){
+        return this.rank;
+    }
 
-                for(int higherLevel = level + 1; higherLevel < this.currentStep.size(); ++ higherLevel) {
-                    this.currentStep.set(higherLevel, this.currentStep.get(higherLevel - 1) + 1);
-                }
+    /**
+     The number of subsets this enumerator visits, saturated at Long.MAX_VALUE.
+     */
+    public long total(){
+        long total = 0;
 
-                for (int index = 0; index < this.currentStep.size(); ++index) {
-                    returnArray[index] = domain.get(this.currentStep.get(index));
-                }
+        for(int subsetSize = this.minimumSize; subsetSize <= this.maximumSize; ++subsetSize){
+            total += choose(this.domain.length, subsetSize);
 
-                return returnArray;
+            if(total < 0){
+                return Long.MAX_VALUE;
             }
-
-            level --;
         }
 
-        // If we get here, it means we exhausted the values for this number of levels and we need to increase it by one
+        return total;
+    }
 
-        if (this.currentStep.size() >= maximumSize || this.currentStep.size() >= domain.size() || this.currentStep.size() >= this.numberOfEdges){
-            return null;
-        }
+    /**
+     Jumps to the subset with the given rank, so that next() continues from there. Returns false if there is no such
+     subset.
+     */
+    public boolean unrank(long targetRank){
+        long remaining = targetRank;
+        int subsetSize = this.minimumSize;
 
-        for(int index = 0; index < this.currentStep.size(); ++index){
-            this.currentStep.set(index, index);
+        while(subsetSize <= this.maximumSize && remaining >= choose(this.domain.length, subsetSize)){
+            remaining -= choose(this.domain.length, subsetSize);
+            subsetSize ++;
         }
 
-        this.currentStep.add(this.currentStep.size());
-        returnArray = new int[this.currentStep.size()];
-
-        for (int index = 0; index < this.currentStep.size(); ++index) {
-            returnArray[index] = domain.get(this.currentStep.get(index));
+        if(targetRank < 0 || subsetSize > this.maximumSize){
+            this.started = true;
+            this.exhausted = true;
+            return false;
         }
 
-        return returnArray;
-    }
-
-    /*public static void main(String[] args){
+        int position = 0;
 
-        GetSets test = new GetSets(3, 10);
-        ArrayList<Integer> auxTest = new ArrayList<>();
-        auxTest.add(1); auxTest.add(9); auxTest.add(3); auxTest.add(4);auxTest.add(5);
+        for(int level = 0; level < subsetSize; ++level){
 
-        int[] aux;
-        for(int repeat = 0; repeat <= 100; ++repeat) {
-            aux = test.getNextPerm(auxTest);
-
-            if (aux == null){
-                System.out.println("There are no more possible permutations");
-                break;
-            }
-
-            for (int i : aux) {
-                System.out.print(Integer.toString(i) + ' ');
+            //skip the blocks of subsets that put a smaller element at this level
+            while(remaining >= choose(this.domain.length - 1 - position, subsetSize - 1 - level)){
+                remaining -= choose(this.domain.length - 1 - position, subsetSize - 1 - level);
+                position ++;
             }
 
-            System.out.println();
+            this.positions[level] = position;
+            this.current[level] = this.domain[position];
+            position ++;
         }
-    } */
 
+        this.size = subsetSize;
+        this.rank = targetRank;
+        this.started = true;
+        this.exhausted = false;
+
+        return true;
+    }
+
+    @Override
+    public String toString(){
+        return Arrays.toString(Arrays.copyOf(this.current, this.size));
+    }
 }
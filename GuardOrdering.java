@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+/**
+ Orders the edges of a component before its guards are enumerated. The search stops at the first guard that works, so
+ putting the promising edges first makes the successful guard come up much earlier. Every strategy is a stable sort
+ on a score per edge, so ties keep the increasing order of the edge indices.
+ */
+public enum GuardOrdering {
+
+    /**
+     Increasing edge index, the order of the plain search.
+     */
+    NATURAL {
+        @Override
+        long score(CompactHypergraph<?> hypergraph, Component component, IntBitSet connector, int edge){
+            return 0;
+        }
+    },
+
+    /**
+     Edges covering the most connector vertices first, then the ones covering the most vertices of the component.
+     */
+    CONNECTOR_COVERAGE {
+        @Override
+        long score(CompactHypergraph<?> hypergraph, Component component, IntBitSet connector, int edge){
+            return ((long) hypergraph.edgeMeets(edge, connector) << 32) + hypergraph.edgeMeets(edge, component.vertices);
+        }
+    },
+
+    /**
+     Largest edges first.
+     */
+    LARGEST_EDGE {
+        @Override
+        long score(CompactHypergraph<?> hypergraph, Component component, IntBitSet connector, int edge){
+            return hypergraph.edgeSize(edge);
+        }
+    },
+
+    /**
+     Edges whose removal leaves the smallest largest component first, so the subproblems below are as balanced as
+     possible.
+     */
+    BALANCED {
+        @Override
+        long score(CompactHypergraph<?> hypergraph, Component component, IntBitSet connector, int edge){
+            return -largestComponentWithout(hypergraph, component, hypergraph.edgeSet(edge));
+        }
+    };
+
+    abstract long score(CompactHypergraph<?> hypergraph, Component component, IntBitSet connector, int edge);
+
+    /**
+     Returns the edges sorted by decreasing score. The given array is not modified.
+     */
+    public int[] order(CompactHypergraph<?> hypergraph, Component component, IntBitSet connector, int[] edges){
+        if(this == NATURAL){
+            return edges;
+        }
+
+        long[] keys = new long[edges.length];
+
+        for(int index = 0; index < edges.length; ++index){
+            keys[index] = score(hypergraph, component, connector, edges[index]);
+        }
+
+        Integer[] order = new Integer[edges.length];
+
+        for(int index = 0; index < edges.length; ++index){
+            order[index] = index;
+        }
+
+        Arrays.sort(order, (first, second) -> Long.compare(keys[second], keys[first]));
+
+        int[] solution = new int[edges.length];
+
+        for(int index = 0; index < edges.length; ++index){
+            solution[index] = edges[order[index]];
+        }
+
+        return solution;
+    }
+
+    /**
+     The number of vertices of the largest piece the component breaks into once the removed vertices are taken out.
+     */
+    static int largestComponentWithout(CompactHypergraph<?> hypergraph, Component component, IntBitSet removed){
+        int largest = 0;
+
+        for(Component piece : ComponentFinder.split(hypergraph, component.vertices, removed)){
+            largest = Math.max(largest, piece.vertices.cardinality());
+        }
+
+        return largest;
+    }
+}
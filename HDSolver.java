@@ -1,243 +1,622 @@
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class HDSolver<T extends Comparable<? super T>> {
+public class HDSolver<T extends Comparable<? super T>> implements DecompositionEngine<T> {
 
     private Hypergraph<T> hypergraph;
+    private final CompactHypergraph<T> compact;
     private final int limitK;
 
+    public static final int DEFAULT_CACHE_ENTRIES = 1 << 20;
+    public static final long DEFAULT_CACHE_BYTES = 256L << 20;
+
+    //answers of the subproblems already explored, keyed by component and connector. Both stores share the memory cap.
+    //They are kept across widths: a decomposition found with guards of at most k edges is still one for any larger
+    //width, and a subproblem that failed at width k also fails at any smaller one, so we store the largest such k
+    private final BoundedCache<SubproblemKey, DecompositionFragment> solvedSubproblems;
+    private final BoundedCache<SubproblemKey, Integer> failedSubproblems;
+
+    private GuardOrdering ordering = GuardOrdering.NATURAL;
+
+    //the join tree when the hypergraph is acyclic, which answers any width of at least 1 without searching
+    private final JoinTree joinTree;
+
+    //WidthLowerBounds.hypertreeWidth of the hypergraph once findDecomposition needs it, -1 before
+    private int lowerBound = -1;
+
+    //null for the sequential search
+    private ForkJoinPool pool = null;
+    private int batchSize = 1;
+
     /**
     Constructor takes a hypergraph class as parameter and the maximum bound K for the hypergraph decomposition
      */
     public HDSolver(Hypergraph<T> hypergraph, int limitK){
+        this(hypergraph, limitK, DEFAULT_CACHE_ENTRIES, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     Same as above, but the caches of solved and failed subproblems together keep at most maximumCachedEntries
+     entries and maximumCachedBytes estimated bytes, evicting the least recently used ones.
+     */
+    public HDSolver(Hypergraph<T> hypergraph, int limitK, int maximumCachedEntries, long maximumCachedBytes){
         this.hypergraph = hypergraph;
+        this.compact = hypergraph.compact();
         this.limitK = limitK;
+
+        this.solvedSubproblems = new BoundedCache<>(maximumCachedEntries / 2, maximumCachedBytes / 2,
+                (key, fragment) -> key.estimatedBytes() + fragment.estimatedBytes());
+        this.failedSubproblems = new BoundedCache<>(maximumCachedEntries - maximumCachedEntries / 2, maximumCachedBytes - maximumCachedBytes / 2,
+                (key, failedWidth) -> key.estimatedBytes());
+        this.joinTree = JoinTree.of(this.compact);
     }
 
-    public boolean checkMutualVerticesConstraint(Component<T> componentFather, Set<Integer> bagOfEdgesFather, HashSet<T> verticesOfGuards){
-        HashSet<T> commonVertices;
-        boolean notCommon = true;
+    /**
+     Switches to the parallel search: batches of guard candidates are tried concurrently on the given pool. Passing
+     null goes back to the sequential search. Both searches return the same decomposition.
+     */
+    public void setParallelism(ForkJoinPool pool){
+        this.pool = pool;
+        this.batchSize = pool == null ? 1 : 2 * pool.getParallelism();
+    }
 
-        if (bagOfEdgesFather.size() != 0) {
-            for (int edgeIndex : componentFather.indicesOfEdges) {
+    /**
+     Sets the order in which the edges of a component are tried as guards. The default is GuardOrdering.NATURAL.
+     The cached subproblems were solved under the previous order, so they are dropped.
+     */
+    public void setGuardOrdering(GuardOrdering ordering){
+        this.ordering = ordering;
+        this.solvedSubproblems.clear();
+    }
 
-                //We get the common vertices of the edge covering some part of the component and the bag of edges of the father
-                commonVertices = this.hypergraph.intersectionOfEdgeWithSetOfEdges(edgeIndex, bagOfEdgesFather);
+    public BoundedCache<SubproblemKey, DecompositionFragment> getSolvedCache(){
+        return this.solvedSubproblems;
+    }
 
-                if (commonVertices.size() > 0) {
-                    notCommon = false;
-                }
+    public BoundedCache<SubproblemKey, Integer> getFailureCache(){
+        return this.failedSubproblems;
+    }
 
-                //and we check if they are included in the current set of guards
-                for (T vertex : commonVertices) {
-                    if (!verticesOfGuards.contains(vertex)) {
-                        return false;
-                    }
-                }
-            }
-        }
+    /**
+     The connector of a component: the vertices of its edges that are also covered by the guards of the father.
+     */
+    public IntBitSet getConnector(Component componentFather, IntBitSet verticesOfGuardsFather){
+        IntBitSet connector = this.compact.verticesOfEdges(componentFather.indicesOfEdges);
+        connector.and(verticesOfGuardsFather);
 
-        if(notCommon && bagOfEdgesFather.size() > 0){
+        return connector;
+    }
+
+    public boolean checkMutualVerticesConstraint(Component componentFather, IntBitSet connector, boolean hasFather, IntBitSet verticesOfGuards){
+
+        //The intersection of the edges in the Component with the bag of atoms of the father must be non empty and included in the guards
+        if(hasFather && (connector.isEmpty() || !connector.isSubsetOf(verticesOfGuards))){
             return false;
         }
 
         // The intersection of the vertices of the component with the vertices of the guards must be not null
-        for(T vertex : verticesOfGuards){
-            if(componentFather.vertices.contains(vertex)){
-                return true;
-            }
+        return verticesOfGuards.intersects(componentFather.vertices);
+    }
+
+    public ArrayList<Component> getPossibleComponents(Component componentFather, IntBitSet verticesOfGuards){
+
+        //the guard vertices split the component. Its border is covered by the guards, so nothing found here can leave it
+        return ComponentFinder.split(this.compact, componentFather.vertices, verticesOfGuards);
+    }
+
+    /**
+     Looks for a decomposition of width at most limitK of the given component. Bags and covered vertices are reported
+     with the original vertex labels.
+     */
+    public boolean Kdecomposable(Component componentFather,
+                                 Set<Integer> guardsFather,
+                                 Set<T> bagsVerticesFather,
+                                 Set<T> coveredVertices,
+                                 ArrayList<Set<T>> bags,
+                                 ArrayList<Set<Integer>> guards){
+
+        int[] guardsFatherArray = new int[guardsFather.size()];
+        int position = 0;
+
+        for(int edge : guardsFather){
+            guardsFatherArray[position ++] = edge;
         }
 
-        return false;
+        IntBitSet verticesOfGuardsFather = this.compact.verticesOfEdges(guardsFatherArray);
+        IntBitSet bagFather = this.compact.toIds(bagsVerticesFather);
+        DecompositionFragment solution = solve(componentFather, guardsFatherArray.length > 0, verticesOfGuardsFather, bagFather, this.limitK, Cancellation.NEVER);
+
+        if(solution == null){
+            return false;
+        }
+
+        report(solution, coveredVertices, bags, guards);
+
+        return true;
     }
 
-    public ArrayList<Component<T>> getPossibleComponents(Component<T> componentFather, Set<T> verticesOfGuards){
+    /**
+     Finds the hypertree width of the whole hypergraph and fills in a decomposition of that width. Widths below the
+     cheap lower bound are never tried. The width of a heuristic decomposition is tried first, then the widths are
+     bisected, and the subproblems solved for one width are reused by the next probes through the caches.
+     */
+    public int optimalWidth(ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        return report(optimalDecomposition(), bags, guards);
+    }
 
-        HashMap<T, Boolean> explored = new HashMap<>();
-        ArrayList<Component<T>> allComponents = new ArrayList<>();
-        Component<T> partialSolution;
-        boolean isOK;
+    /**
+     Same as above, but only looks between the given bounds, so bounds computed beforehand save probes. Returns -1 and
+     leaves the lists untouched when there is no decomposition of width at most upperBound.
+     */
+    public int optimalWidth(int lowerBound, int upperBound, ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        return report(optimalDecomposition(lowerBound, upperBound), bags, guards);
+    }
 
+    /**
+     Same as above for the decomposition of the vertices outside fatherVertices, hanging below a node whose bag and
+     guards hold exactly those vertices. The bag of its root holds the vertices of fatherVertices it touches, so it
+     can be glued below any node containing them.
+     */
+    public int optimalWidthBelow(Set<T> fatherVertices, int lowerBound, int upperBound, ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        return report(optimalDecompositionBelow(fatherVertices, lowerBound, upperBound), bags, guards);
+    }
 
-        for(T vertex : this.hypergraph.vertexToHyperedge.keySet()){
-            if( !explored.containsKey(vertex) && !verticesOfGuards.contains(vertex) ) {
+    /**
+     Returns a decomposition of width at most limitK of the whole hypergraph, or null if there is none.
+     */
+    public HypertreeDecomposition<T> findDecomposition(){
+        return findDecomposition(this.limitK);
+    }
 
-                partialSolution = new Component<>();
-                DFS(vertex, partialSolution, verticesOfGuards, explored);
+    @Override
+    public HypertreeDecomposition<T> findDecomposition(int width){
+        return findDecomposition(width, SearchBudget.unlimited()).decomposition;
+    }
 
-                //Check if the new component is included in the parent one
+    /**
+     Reduces the hypergraph with HypergraphReduction, looks for a decomposition of width at most the given one of the
+     reduced hypergraph and expands it back. Returns null if there is none.
+     */
+    public static <T extends Comparable<? super T>> HypertreeDecomposition<T> findReducedDecomposition(Hypergraph<T> hypergraph, int width){
+        return new HypergraphReduction<>(hypergraph).findDecomposition(reduced -> new HDSolver<>(reduced, width), width);
+    }
 
-                isOK = true;
+    /**
+     Same as above, but gives up with UNKNOWN once the budget runs out. The search can also be stopped from another
+     thread by cancelling the budget.
+     */
+    public SearchResult<T> findDecomposition(int width, SearchBudget budget){
+        IntBitSet empty = new IntBitSet(this.compact.numberOfVertices);
 
-                for (T vertexInPartial : partialSolution.vertices) {
-                    if ( !componentFather.vertices.contains(vertexInPartial) ) {
-                        isOK = false;
-                        break;
-                    }
-                }
+        //the join tree answers without searching, otherwise the widths below the lower bound fail at once
+        if(this.joinTree == null && this.compact.numberOfEdges > 0){
+            if(this.lowerBound < 0){
+                this.lowerBound = WidthLowerBounds.hypertreeWidth(this.compact);
+            }
 
-                if (isOK) {
-                    allComponents.add(partialSolution);
-                }
+            if(width < this.lowerBound){
+                return new SearchResult<>(SearchBudget.Outcome.NO, null);
             }
         }
 
+        DecompositionFragment solution = this.compact.numberOfEdges == 0 ? emptyFragment()
+                : solve(Component.whole(this.compact), false, empty, empty, width, budget);
 
-        return allComponents;
+        if(solution != null){
+            return new SearchResult<>(SearchBudget.Outcome.YES, toTree(solution));
+        }
+
+        return new SearchResult<>(budget.isCancelled() ? SearchBudget.Outcome.UNKNOWN : SearchBudget.Outcome.NO, null);
     }
 
-    public void DFS(T vertex,
-                     Component<T> partialSolution,
-                     Set<T> verticesOfGuards,
-                     HashMap<T, Boolean> explored){
+    /**
+     Returns a decomposition of the whole hypergraph of the smallest possible width, searched as for optimalWidth.
+     */
+    public HypertreeDecomposition<T> optimalDecomposition(){
+        //an acyclic hypergraph has width 1, which needs neither the heuristic nor the lower bound
+        if(this.joinTree != null){
+            return toTree(this.joinTree.toFragment(this.compact));
+        }
+
+        HeuristicDecomposition heuristic = new HeuristicDecomposition(this.compact, HeuristicDecomposition.EliminationRule.MIN_FILL);
+        IntBitSet empty = new IntBitSet(this.compact.numberOfVertices);
 
-        if( explored.containsKey(vertex) ) {
-            return;
+        return toTree(optimal(Component.whole(this.compact), false, empty, WidthLowerBounds.hypertreeWidth(this.compact),
+                this.compact.numberOfEdges, heuristic.width, Cancellation.NEVER));
+    }
+
+    /**
+     Same as above, but stops once the budget runs out. The answer is then UNKNOWN with the decomposition of smallest
+     width found so far, if any, which makes this an anytime search: YES means the width is proven optimal.
+     */
+    public SearchResult<T> optimalDecomposition(SearchBudget budget){
+        if(this.joinTree != null){
+            return new SearchResult<>(SearchBudget.Outcome.YES, toTree(this.joinTree.toFragment(this.compact)));
         }
 
-        explored.put(vertex, true);
+        HeuristicDecomposition heuristic = new HeuristicDecomposition(this.compact, HeuristicDecomposition.EliminationRule.MIN_FILL);
+        IntBitSet empty = new IntBitSet(this.compact.numberOfVertices);
+        HypertreeDecomposition<T> solution = toTree(optimal(Component.whole(this.compact), false, empty,
+                WidthLowerBounds.hypertreeWidth(this.compact), this.compact.numberOfEdges, heuristic.width, budget));
 
-        //We need to explore all the nodes we can get to from this one
-        for (int edge : this.hypergraph.vertexToHyperedge.get(vertex).keySet()){
-            for (T neighVertex : this.hypergraph.hyperedges.get(edge).keySet()){
+        if(budget.isCancelled()){
+            return new SearchResult<>(SearchBudget.Outcome.UNKNOWN, solution);
+        }
 
-                partialSolution.indicesOfEdges.add(edge);
+        return new SearchResult<>(solution == null ? SearchBudget.Outcome.NO : SearchBudget.Outcome.YES, solution);
+    }
 
-                if(!verticesOfGuards.contains(neighVertex)){
+    /**
+     Returns a decomposition of the whole hypergraph of the smallest width between the bounds, or null if there is
+     none of width at most upperBound.
+     */
+    public HypertreeDecomposition<T> optimalDecomposition(int lowerBound, int upperBound){
+        IntBitSet empty = new IntBitSet(this.compact.numberOfVertices);
+
+        return toTree(optimal(Component.whole(this.compact), false, empty, lowerBound, upperBound, upperBound, Cancellation.NEVER));
+    }
 
-                    partialSolution.vertices.add(neighVertex);
+    /**
+     Same as above for the part of the hypergraph below a node holding fatherVertices, as for optimalWidthBelow.
+     */
+    public HypertreeDecomposition<T> optimalDecompositionBelow(Set<T> fatherVertices, int lowerBound, int upperBound){
+        IntBitSet father = this.compact.toIds(fatherVertices);
+        Component below = new Component(this.compact);
 
-                    DFS(neighVertex,
-                            partialSolution,
-                            verticesOfGuards,
-                            explored);
+        for(int vertex = 0; vertex < this.compact.numberOfVertices; ++vertex){
+            if(!father.contains(vertex)){
+                below.vertices.add(vertex);
 
+                for(int incidence = this.compact.vertexOffsets[vertex]; incidence < this.compact.vertexOffsets[vertex + 1]; ++incidence){
+                    below.indicesOfEdges.add(this.compact.vertexEdges[incidence]);
                 }
             }
         }
+
+        return toTree(optimal(below, true, father, lowerBound, upperBound, upperBound, Cancellation.NEVER));
     }
 
-    public boolean Kdecomposable(Component<T> componentFather,
-                                 Set<Integer> guardsFather,
-                                 Set<T> bagsVerticesFather,
-                                 Set<T> coveredVertices,
-                                 ArrayList<Set<T>> bags,
-                                 ArrayList<Set<Integer>> guards){
+    //stops with the best decomposition so far when cancelled, since a failed probe then proves nothing
+    private DecompositionFragment optimal(Component component, boolean hasFather, IntBitSet father, int lowerBound, int upperBound,
+                                          int firstProbe, Cancellation cancellation){
+        DecompositionFragment best = null;
+        int upper = Math.min(upperBound, this.compact.numberOfEdges);
+        int lower = Math.max(lowerBound, 1);
+        int middle;
+        DecompositionFragment solution;
+
+        //a hypergraph with no edges has nothing to decompose
+        if(this.compact.numberOfEdges == 0){
+            return emptyFragment();
+        }
+
+        //no width is left between the bounds. A single node guarded by all the edges always works, so the widths
+        //above numberOfEdges are not searched
+        if(lower > upperBound){
+            return null;
+        }
+
+        lower = Math.min(lower, upper);
+
+        int probe = Math.max(lower, Math.min(firstProbe, upper));
+
+        //until some width works the probes are taken as given, then the answer is in [lower, upper] and best always
+        //holds a decomposition of width upper + 1
+        while(lower <= upper){
+            middle = best == null ? probe : lower + (upper - lower) / 2;
+            solution = solve(component, hasFather, father, father, middle, cancellation);
+
+            if(solution == null && cancellation.isCancelled()){
+                return best;
+            }
+            else if(solution != null){
+                best = solution;
+                upper = solution.width - 1;
+            }
+            else if(best == null && middle >= upper){
+                return null;
+            }
+            else{
+                lower = middle + 1;
+                probe = upper;
+            }
+        }
+
+        return best;
+    }
+
+    private static DecompositionFragment emptyFragment(){
+        return new DecompositionFragment(new ArrayList<>(), new ArrayList<>(), new int[0]);
+    }
+
+    private DecompositionFragment solve(Component componentFather, boolean hasFather, IntBitSet verticesOfGuardsFather,
+                                        IntBitSet bagFather, int width, Cancellation cancellation){
+        if(this.joinTree != null && width >= 1 && !hasFather && componentFather.vertices.cardinality() == this.compact.numberOfVertices){
+            return this.joinTree.toFragment(this.compact);
+        }
+
+        if(this.pool == null){
+            return decompose(componentFather, hasFather, verticesOfGuardsFather, bagFather, width, cancellation);
+        }
+
+        //the parallel search forks from inside the pool, so the root call has to run there as well
+        return this.pool.invoke(ForkJoinTask.adapt(() -> decompose(componentFather, hasFather,
+                verticesOfGuardsFather, bagFather, width, cancellation)));
+    }
+
+    private void report(DecompositionFragment solution, Set<T> coveredVertices, ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        for(int node = 0; node < solution.size(); ++node){
+            bags.add(this.compact.toLabels(solution.bag(node)));
+            guards.add(new HashSet<>(solution.guard(node)));
+        }
+
+        coveredVertices.addAll(this.compact.toLabels(solution.coveredVertices(this.compact.numberOfVertices)));
+    }
+
+    //fills in the lists in preorder and returns the width, or -1 without touching them when there is no decomposition
+    private int report(HypertreeDecomposition<T> decomposition, ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        if(decomposition == null){
+            return -1;
+        }
+
+        decomposition.toLists(bags, guards);
+
+        return decomposition.width();
+    }
+
+    private HypertreeDecomposition<T> toTree(DecompositionFragment solution){
+        if(solution == null){
+            return null;
+        }
+
+        ArrayList<Set<T>> bags = new ArrayList<>();
+        ArrayList<Set<Integer>> guards = new ArrayList<>();
+
+        for(int node = 0; node < solution.size(); ++node){
+            bags.add(this.compact.toLabels(solution.bag(node)));
+            guards.add(solution.guard(node));
+        }
+
+        return new HypertreeDecomposition<>(bags, guards, solution.parents());
+    }
+
+    /**
+     Looks for a decomposition of the component below a node with the given guard vertices and bag. Returns null
+     when there is none, or when the search was cancelled before finding one.
+     */
+    private DecompositionFragment decompose(Component componentFather,
+                                            boolean hasFather,
+                                            IntBitSet verticesOfGuardsFather,
+                                            IntBitSet bagsVerticesFather,
+                                            int width,
+                                            Cancellation cancellation){
 
         int[] currentPermutation;
 
-        //get the current permutation as indices of the edges in the current component
-        GetSets permutationGenerator = new GetSets(this.limitK, componentFather.indicesOfEdges.size());
-        currentPermutation = permutationGenerator.getNextPerm();
+        //the connector does not depend on the guards we try, so we compute it only once
+        IntBitSet connector = getConnector(componentFather, verticesOfGuardsFather);
+
+        //the bags below only depend on the part of the bag of the father the edges of the component can reach
+        IntBitSet bagConnector = this.compact.verticesOfEdges(componentFather.indicesOfEdges);
+        bagConnector.and(bagsVerticesFather);
 
-        //I need to get them as an array so I can iterate through them
-        Integer[] indicesOfedges = componentFather.indicesOfEdges.toArray(Integer[]::new);
+        SubproblemKey key = new SubproblemKey(hasFather, componentFather.indicesOfEdges, componentFather.vertices, connector, bagConnector);
+
+        //0 --> if we already solved this subproblem under another guard choice above, we reuse the answer
+        DecompositionFragment known = this.solvedSubproblems.get(key);
+
+        if(known != null && known.width <= width){
+            return known;
+        }
+
+        Integer failedWidth = this.failedSubproblems.get(key);
+
+        if(failedWidth != null && failedWidth >= width){
+            return null;
+        }
+
+        //a component that shares nothing with the guards of the father can never be attached below them
+        if(hasFather && connector.isEmpty()){
+            this.failedSubproblems.put(key, Integer.MAX_VALUE);
+            return null;
+        }
+
+        //the guards are enumerated directly over the indices of the edges in the current component, and only those
+        //covering the connector are generated at all. The empty set of guards never intersects the component, so we
+        //start from one edge
+        int[] candidateEdges = this.ordering.order(this.compact, componentFather, connector, componentFather.indicesOfEdges.toArray());
+        ConnectorGuardSets permutationGenerator = new ConnectorGuardSets(this.compact, width, candidateEdges, connector);
+
+        ArrayList<int[]> batch = new ArrayList<>();
+        DecompositionFragment solution = null;
 
         // It goes through all the combinations of guards
-        while(currentPermutation != null){
+        while(solution == null && permutationGenerator.next()){
+
+            //a result computed after we were cancelled may be missing some branches, so it is neither used nor cached
+            if(cancellation.isCancelled()){
+                return null;
+            }
+
+            cancellation.countGuardCandidate();
+            currentPermutation = permutationGenerator.current();
+
+            if(this.pool == null){
+                solution = decompose(componentFather, hasFather, connector, bagsVerticesFather, currentPermutation, permutationGenerator.size(), width, cancellation);
+            }
+            else{
+                //the enumerator reuses its array, so the batch keeps copies
+                batch.add(Arrays.copyOf(currentPermutation, permutationGenerator.size()));
 
-            //iterate through the indices of the indices and get the direct indices of hyperedges
-            for(int index = 0; index < currentPermutation.length; ++index){
-                currentPermutation[index] = indicesOfedges[currentPermutation[index]];
+                if(batch.size() == this.batchSize){
+                    solution = tryBatch(componentFather, hasFather, connector, bagsVerticesFather, batch, width, cancellation);
+                    batch.clear();
+                }
             }
+        }
+
+        if(solution == null && !batch.isEmpty()){
+            solution = tryBatch(componentFather, hasFather, connector, bagsVerticesFather, batch, width, cancellation);
+        }
+
+        if(cancellation.isCancelled()){
+            return null;
+        }
+
+        if(solution != null){
+            this.solvedSubproblems.put(key, solution);
+        }
+        else{
+            this.failedSubproblems.put(key, failedWidth == null ? width : Math.max(width, failedWidth));
+        }
+
+        return solution;
+    }
+
+    /**
+     Tries a batch of guard candidates concurrently. As soon as a candidate succeeds, the candidates after it in the
+     batch are cancelled, while the ones before it still run to completion, so the winner is always the first
+     successful candidate in enumeration order, exactly as in the sequential search.
+     */
+    private DecompositionFragment tryBatch(Component componentFather,
+                                           boolean hasFather,
+                                           IntBitSet connector,
+                                           IntBitSet bagsVerticesFather,
+                                           ArrayList<int[]> batch,
+                                           int width,
+                                           Cancellation cancellation){
+
+        int size = batch.size();
+        Cancellation[] branches = new Cancellation[size];
+        DecompositionFragment[] results = new DecompositionFragment[size];
+        AtomicInteger winner = new AtomicInteger(size);
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(size);
+
+        for(int index = 0; index < size; ++index){
+            branches[index] = new Cancellation(cancellation);
+        }
 
-            //now currentPermutation has the indices of the hyperedges, but just those from the current component
+        for(int index = 0; index < size; ++index){
+            final int candidate = index;
 
-             if(Kdecomposable(componentFather,
-                                guardsFather,
-                                bagsVerticesFather,
-                                currentPermutation,
-                                 coveredVertices,
-                                 bags,
-                                 guards)){
+            tasks.add(ForkJoinTask.adapt(() -> {
 
-                 return true;
-             }
+                if(candidate > winner.get() || branches[candidate].isCancelled()){
+                    return;
+                }
 
-            currentPermutation = permutationGenerator.getNextPerm();
+                results[candidate] = decompose(componentFather, hasFather, connector, bagsVerticesFather, batch.get(candidate),
+                        batch.get(candidate).length, width, branches[candidate]);
+
+                if(results[candidate] != null){
+                    winner.accumulateAndGet(candidate, Math::min);
+
+                    for(int later = candidate + 1; later < size; ++later){
+                        branches[later].cancel();
+                    }
+                }
+            }));
         }
 
-        return false;
+        ForkJoinTask.invokeAll(tasks);
+
+        int best = winner.get();
+
+        if(best == size || cancellation.isCancelled()){
+            return null;
+        }
 
+        return results[best];
     }
 
-    public boolean Kdecomposable(Component<T> componentFather,
-                                 Set<Integer> guardsFather,
-                                 Set<T> bagsVerticesFather,
-                                 int[] currentPermutation,
-                                 Set<T> coveredVertices,
-                                 ArrayList<Set<T>> bags,
-                                 ArrayList<Set<Integer>> guards){
+    /**
+     Builds the node guarded by the first guardSize edges of currentPermutation and decomposes the components it
+     leaves. Returns null if the guards do not fit the component or one of the components below cannot be decomposed.
+     */
+    private DecompositionFragment decompose(Component componentFather,
+                                            boolean hasFather,
+                                            IntBitSet connector,
+                                            IntBitSet bagsVerticesFather,
+                                            int[] currentPermutation,
+                                            int guardSize,
+                                            int width,
+                                            Cancellation cancellation){
 
         // 1 --> guess a set S for the guards of this node, we'll go through all possible combinations of at max K edges as guards, starting from k = 1
         Set<Integer> permAsSet;
-        ArrayList<Component<T>> possibleComponentsForThisNode;
-
-        permAsSet = new HashSet<>();
-        HashSet<T> verticesOfGuards = new HashSet<>();
+        ArrayList<Component> possibleComponentsForThisNode;
 
         //We need to get the vertices of the guards
-        for(int edge : currentPermutation){
-            verticesOfGuards.addAll(this.hypergraph.hyperedges.get(edge).keySet());
-        }
+        IntBitSet verticesOfGuards = this.compact.verticesOfEdges(currentPermutation, guardSize);
 
         //2--> We need to test that the intersection of the edges in the Component with the bag of atoms of the father are included in the guards of S
-        if (!checkMutualVerticesConstraint(componentFather, guardsFather, verticesOfGuards)){
-            return false;
+        if (!checkMutualVerticesConstraint(componentFather, connector, hasFather, verticesOfGuards)){
+            return null;
         }
 
-        //3 --> We need to generate all the possible components using DFS
+        //3 --> We need to generate all the possible components left by the guards
         possibleComponentsForThisNode = getPossibleComponents(componentFather, verticesOfGuards);
 
-        for(int edge : currentPermutation){
-            permAsSet.add(edge);
-        }
+        permAsSet = new HashSet<>();
 
-        HashSet<Integer> aux = new HashSet<>(permAsSet);
-        guards.add(aux);
-        HashSet<T> newBag = new HashSet<>();
+        for(int index = 0; index < guardSize; ++index){
+            permAsSet.add(currentPermutation[index]);
+        }
 
-        if(guardsFather.size() == 0){
-            Set<T> verticesOfGuardsThis = new HashSet<>();
+        IntBitSet newBag = verticesOfGuards.copy();
 
-            for(int edge : currentPermutation){
-                verticesOfGuardsThis.addAll(this.hypergraph.hyperedges.get(edge).keySet());
-            }
-            newBag.addAll(verticesOfGuardsThis);
+        //below the root the bag only keeps the guard vertices in the component or in the bag of the father
+        if(hasFather){
+            newBag.and(IntBitSet.union(componentFather.vertices, bagsVerticesFather));
         }
-        else{
-            Set<T> verticesOfGuardsThis = new HashSet<>();
 
-            for(int edge : currentPermutation){
-                verticesOfGuardsThis.addAll(this.hypergraph.hyperedges.get(edge).keySet());
-            }
+        DecompositionFragment[] children = new DecompositionFragment[possibleComponentsForThisNode.size()];
 
-            Set<T> reunionComponentBagFather = new HashSet<>();
-            reunionComponentBagFather.addAll(componentFather.vertices);
-            reunionComponentBagFather.addAll(bagsVerticesFather);
+        if(this.pool == null || children.length < 2){
+            for(int index = 0; index < children.length; ++index) {
+                children[index] = decompose(possibleComponentsForThisNode.get(index), true, verticesOfGuards, newBag, width, cancellation);
 
-            for(T vertex : reunionComponentBagFather){
-                if(verticesOfGuardsThis.contains(vertex)){
-                    newBag.add(vertex);
+                if (children[index] == null) {
+                    return null;
                 }
             }
         }
+        else{
+            //the components share nothing but the bag of this node, so they are solved side by side, and the first one
+            //that fails stops its siblings since the node is lost anyway
+            Cancellation siblings = new Cancellation(cancellation);
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(children.length);
+
+            for(int index = 0; index < children.length; ++index){
+                final int child = index;
+
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    if(siblings.isCancelled()){
+                        return;
+                    }
 
-        bags.add(newBag);
+                    children[child] = decompose(possibleComponentsForThisNode.get(child), true, verticesOfGuards, newBag, width, siblings);
 
-        coveredVertices.addAll(newBag);
+                    if(children[child] == null){
+                        siblings.cancel();
+                    }
+                }));
+            }
 
-        for(Component<T> thisComponent : possibleComponentsForThisNode) {
+            ForkJoinTask.invokeAll(tasks);
 
-            if ( !Kdecomposable(thisComponent, permAsSet, newBag, coveredVertices, bags, guards)) {
-                bags.remove(bags.size() - 1);
-                guards.remove(guards.size() - 1);
-                return false;
+            for(DecompositionFragment child : children){
+                if(child == null){
+                    return null;
+                }
             }
         }
 
-        return true;
+        return new DecompositionFragment(newBag, permAsSet, Arrays.asList(children));
     }
 
     public static void main(String[] args){
@@ -584,12 +963,7 @@ public class HDSolver<T extends Comparable<? super T>> {
 
         HDSolver<Integer> mySolver = new HDSolver<>(myHypergraph, 1);
 
-        Component<Integer> firstComponent = new Component<>();
-        firstComponent.vertices.addAll(myHypergraph.vertexToHyperedge.keySet());
-
-        for(int index = 0; index < myHypergraph.hyperedges.size(); ++index){
-            firstComponent.indicesOfEdges.add(index);
-        }
+        Component firstComponent = Component.whole(myHypergraph.compact());
 
         Set<Integer> bafOfWordsFather = new HashSet<>();
         ArrayList<Set<Integer>> bags = new ArrayList<>();
@@ -618,6 +992,8 @@ public class HDSolver<T extends Comparable<? super T>> {
 
         Instant stop = Instant.now();
 
-        System.out.print("The execution took " + Duration.between(start, stop) + " seconds");
+        System.out.println("The execution took " + Duration.between(start, stop) + " seconds");
+        System.out.println("Solved cache: " + mySolver.getSolvedCache());
+        System.out.println("Failure cache: " + mySolver.getFailureCache());
     }
 }
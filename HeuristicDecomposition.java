@@ -0,0 +1,198 @@
+import java.util.*;
+
+/**
+ A quick generalized hypertree decomposition built without any search. The vertices of the primal graph are eliminated
+ one by one with a min-degree or min-fill rule, which gives a tree decomposition, and every bag is then covered
+ greedily by edges to get its guard. Its width is an upper bound on the generalized hypertree width only; the bags
+ need not satisfy the special condition of hypertree decompositions, so for the exact solver it is a first width to
+ try rather than a guaranteed answer.
+ */
+public class HeuristicDecomposition {
+
+    public enum EliminationRule {
+        //eliminate the vertex with the fewest neighbours
+        MIN_DEGREE,
+        //eliminate the vertex whose neighbours miss the fewest edges between them
+        MIN_FILL
+    }
+
+    //one node per vertex, in elimination order, each bag as its sorted vertex ids. parents[node] is -1 for the root
+    public final ArrayList<int[]> bags = new ArrayList<>();
+    public final ArrayList<Set<Integer>> guards = new ArrayList<>();
+    public final int[] parents;
+    public final int width;
+
+    /**
+     The primal graph is kept as adjacency sets and the scores of the remaining vertices in a queue, so eliminating a
+     vertex only rescores the vertices whose neighbourhood it changed. Ties go to the smallest vertex.
+     */
+    public HeuristicDecomposition(CompactHypergraph<?> hypergraph, EliminationRule rule){
+        int numberOfVertices = hypergraph.numberOfVertices;
+        ArrayList<HashSet<Integer>> neighbours = new ArrayList<>(numberOfVertices);
+        int[] position = new int[numberOfVertices];
+        long[] scores = new long[numberOfVertices];
+        boolean[] eliminated = new boolean[numberOfVertices];
+
+        //score << 32 | vertex, with stale entries skipped when they come out
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            HashSet<Integer> around = new HashSet<>();
+
+            for(int incidence = hypergraph.vertexOffsets[vertex]; incidence < hypergraph.vertexOffsets[vertex + 1]; ++incidence){
+                int edge = hypergraph.vertexEdges[incidence];
+
+                for(int index = hypergraph.edgeOffsets[edge]; index < hypergraph.edgeOffsets[edge + 1]; ++index){
+                    around.add(hypergraph.edgeVertices[index]);
+                }
+            }
+
+            around.remove(vertex);
+            neighbours.add(around);
+        }
+
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            scores[vertex] = score(neighbours, vertex, rule);
+            queue.add(scores[vertex] << 32 | vertex);
+        }
+
+        int width = 0;
+        IntBitSet uncovered = new IntBitSet(numberOfVertices);
+
+        for(int step = 0; step < numberOfVertices; ++step){
+            int chosen = -1;
+
+            while(chosen < 0){
+                long entry = queue.poll();
+                int vertex = (int) entry;
+
+                if(!eliminated[vertex] && entry >>> 32 == scores[vertex]){
+                    chosen = vertex;
+                }
+            }
+
+            HashSet<Integer> around = neighbours.get(chosen);
+            int[] bag = new int[around.size() + 1];
+            int size = 0;
+
+            //the neighbours of the eliminated vertex become a clique
+            for(int vertex : around){
+                HashSet<Integer> next = neighbours.get(vertex);
+
+                next.addAll(around);
+                next.remove(vertex);
+                next.remove(chosen);
+                bag[size ++] = vertex;
+            }
+
+            bag[size] = chosen;
+            Arrays.sort(bag);
+            eliminated[chosen] = true;
+            position[chosen] = step;
+
+            //the degree only changes on the neighbours, the fill also on the vertices next to two of them
+            HashSet<Integer> touched = new HashSet<>(around);
+
+            if(rule == EliminationRule.MIN_FILL){
+                for(int vertex : around){
+                    touched.addAll(neighbours.get(vertex));
+                }
+            }
+
+            for(int vertex : touched){
+                long score = score(neighbours, vertex, rule);
+
+                if(score != scores[vertex]){
+                    scores[vertex] = score;
+                    queue.add(score << 32 | vertex);
+                }
+            }
+
+            Set<Integer> guard = cover(hypergraph, bag, uncovered);
+            width = Math.max(width, guard.size());
+
+            this.bags.add(bag);
+            this.guards.add(guard);
+        }
+
+        //the parent of a node is the first vertex of its bag eliminated after it. Nodes with no such vertex start a
+        //new tree of the forest, and those trees share no vertex, so they are hung below the last node
+        this.parents = new int[numberOfVertices];
+
+        for(int step = 0; step < numberOfVertices; ++step){
+            int parent = -1;
+
+            for(int vertex : this.bags.get(step)){
+                if(position[vertex] > step && (parent < 0 || position[vertex] < parent)){
+                    parent = position[vertex];
+                }
+            }
+
+            this.parents[step] = parent < 0 && step < numberOfVertices - 1 ? numberOfVertices - 1 : parent;
+        }
+
+        this.width = width;
+    }
+
+    private static long score(ArrayList<HashSet<Integer>> neighbours, int vertex, EliminationRule rule){
+        return rule == EliminationRule.MIN_DEGREE ? neighbours.get(vertex).size() : fill(neighbours, vertex);
+    }
+
+    //the number of missing edges between the neighbours of the vertex
+    private static long fill(ArrayList<HashSet<Integer>> neighbours, int vertex){
+        HashSet<Integer> around = neighbours.get(vertex);
+        long count = 0;
+
+        for(int first : around){
+            HashSet<Integer> next = neighbours.get(first);
+
+            for(int second : around){
+                if(first < second && !next.contains(second)){
+                    count ++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     Covers the bag with edges, always taking the edge that covers the most uncovered vertices of the bag. uncovered is
+     a work set, empty before and after.
+     */
+    private static Set<Integer> cover(CompactHypergraph<?> hypergraph, int[] bag, IntBitSet uncovered){
+        Set<Integer> guard = new HashSet<>();
+
+        for(int vertex : bag){
+            uncovered.add(vertex);
+        }
+
+        for(int vertex : bag){
+            if(!uncovered.contains(vertex)){
+                continue;
+            }
+
+            int bestEdge = -1;
+            int bestGain = 0;
+
+            //only the edges touching an uncovered vertex can gain anything, and one of them touches the first one
+            for(int incidence = hypergraph.vertexOffsets[vertex]; incidence < hypergraph.vertexOffsets[vertex + 1]; ++incidence){
+                int edge = hypergraph.vertexEdges[incidence];
+                int gain = hypergraph.edgeMeets(edge, uncovered);
+
+                if(gain > bestGain){
+                    bestEdge = edge;
+                    bestGain = gain;
+                }
+            }
+
+            guard.add(bestEdge);
+
+            for(int index = hypergraph.edgeOffsets[bestEdge]; index < hypergraph.edgeOffsets[bestEdge + 1]; ++index){
+                uncovered.remove(hypergraph.edgeVertices[index]);
+            }
+        }
+
+        return guard;
+    }
+}
@@ -6,6 +6,7 @@ public class Hypergraph<K extends Comparable<? super K>>{
     public ArrayList<Map<K, Integer>> hyperedges; //maps hyperedges to vertices. ArrayList< edgeNumber, Map< vertex, weightOnVertex>>
     public Map<K, Map<Integer, Boolean>> vertexToHyperedge = new HashMap<>(); //maps vertices to hyperedges to keep track more easily of intersections of hyperedges
     private int numberOfHyperEdges;
+    private CompactHypergraph<K> compact; //frozen CSR snapshot, rebuilt lazily after the hypergraph changes
 
     public Hypergraph(){
         this.numberOfHyperEdges = 0;
@@ -25,6 +26,7 @@ public class Hypergraph<K extends Comparable<? super K>>{
 
         this.hyperedges.add(newHyperEdge);
         this.numberOfHyperEdges ++;
+        this.compact = null;
     }
 
     public void addHyperEdge(Map<K, Integer> hyperEdge){
@@ -38,6 +40,18 @@ public class Hypergraph<K extends Comparable<? super K>>{
 
         this.hyperedges.add(hyperEdge);
         this.numberOfHyperEdges ++;
+        this.compact = null;
+    }
+
+    /**
+     Returns the compact int-indexed form of this hypergraph. It is built once and shared until another edge is added.
+     */
+    public CompactHypergraph<K> compact(){
+        if(this.compact == null){
+            this.compact = new CompactHypergraph<>(this);
+        }
+
+        return this.compact;
     }
 
     public HashSet<K> intersectionOfEdgeWithSetOfEdges(int edge, Set<Integer> bagOfEdgesFather){
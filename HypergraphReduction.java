@@ -0,0 +1,357 @@
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ Shrinks a hypergraph before it is decomposed, with reductions that keep the width:
+ - an edge equal to another edge is dropped. For the generalized and the fractional hypertree width an edge contained
+   in a larger one can be dropped as well, the larger edge covers it wherever it goes. This is not safe for the
+   hypertree width, where a guard holding the larger edge may break the special condition, so it is only done when
+   asked for;
+ - twin vertices, lying in exactly the same edges, are merged into the smallest of them. This also merges all the
+   vertices occurring only in one same edge.
+ Dropping edges can make new twins and the other way around, so both run until nothing changes. A decomposition of
+ the reduced hypergraph is expanded back by putting every merged vertex wherever its twin is and by renaming the
+ guards to the original edge indices. Vertices occurring in a single edge are not removed altogether: without them
+ the edge may be covered by a guard that does not hold it, and the decomposition could not be expanded back.
+ */
+public class HypergraphReduction<T extends Comparable<? super T>> {
+
+    public final Hypergraph<T> original;
+    public final Hypergraph<T> reduced;
+
+    //originalEdges[e] is the index in the original hypergraph of the edge e of the reduced one
+    private final int[] originalEdges;
+
+    //the vertices merged into each vertex kept in the reduced hypergraph
+    private final HashMap<T, ArrayList<T>> twins = new HashMap<>();
+
+    public final int removedEdges;
+    public final int removedVertices;
+
+    /**
+     Reduces the hypergraph keeping its hypertree width.
+     */
+    public HypergraphReduction(Hypergraph<T> hypergraph){
+        this(hypergraph, false);
+    }
+
+    /**
+     Reduces the hypergraph, also dropping the edges contained in larger ones if dropSubsumedEdges is set. Only the
+     generalized and the fractional hypertree width are kept then.
+     */
+    public HypergraphReduction(Hypergraph<T> hypergraph, boolean dropSubsumedEdges){
+        CompactHypergraph<T> compact = hypergraph.compact();
+        int numberOfEdges = compact.numberOfEdges;
+        int numberOfVertices = compact.numberOfVertices;
+        int[][] edges = new int[numberOfEdges][];
+        IntBitSet aliveEdges = new IntBitSet(numberOfEdges);
+        IntBitSet aliveVertices = new IntBitSet(numberOfVertices);
+        int[] mergedInto = new int[numberOfVertices];
+        boolean changed = true;
+
+        //the edges are sorted vertex lists, as in the CSR arrays, and lose the vertices merged away
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            edges[edge] = Arrays.copyOfRange(compact.edgeVertices, compact.edgeOffsets[edge], compact.edgeOffsets[edge + 1]);
+            aliveEdges.add(edge);
+        }
+
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            aliveVertices.add(vertex);
+            mergedInto[vertex] = vertex;
+        }
+
+        while(changed){
+            changed = mergeTwins(edges, aliveEdges, aliveVertices, mergedInto);
+            changed |= dropEdges(edges, aliveEdges, numberOfVertices, dropSubsumedEdges);
+        }
+
+        this.original = hypergraph;
+        this.reduced = new Hypergraph<>();
+        this.originalEdges = aliveEdges.toArray();
+
+        for(int edge : this.originalEdges){
+            ArrayList<T> vertices = new ArrayList<>();
+
+            for(int vertex : edges[edge]){
+                vertices.add(compact.vertex(vertex));
+            }
+
+            this.reduced.addHyperEdge(vertices);
+        }
+
+        //a vertex merged into one that got merged later ends up with the last one
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            int representative = vertex;
+
+            while(mergedInto[representative] != representative){
+                representative = mergedInto[representative];
+            }
+
+            if(representative != vertex){
+                this.twins.computeIfAbsent(compact.vertex(representative), key -> new ArrayList<>()).add(compact.vertex(vertex));
+            }
+        }
+
+        this.removedEdges = numberOfEdges - this.originalEdges.length;
+        this.removedVertices = numberOfVertices - aliveVertices.cardinality();
+    }
+
+    //incidences[v] lists the alive edges holding the vertex v in increasing order
+    private static int[][] incidences(int[][] edges, IntBitSet aliveEdges, int numberOfVertices){
+        int[][] incidences = new int[numberOfVertices][];
+        int[] sizes = new int[numberOfVertices];
+
+        for(int edge = aliveEdges.nextSetBit(0); edge >= 0; edge = aliveEdges.nextSetBit(edge + 1)){
+            for(int vertex : edges[edge]){
+                sizes[vertex] ++;
+            }
+        }
+
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            incidences[vertex] = new int[sizes[vertex]];
+            sizes[vertex] = 0;
+        }
+
+        for(int edge = aliveEdges.nextSetBit(0); edge >= 0; edge = aliveEdges.nextSetBit(edge + 1)){
+            for(int vertex : edges[edge]){
+                incidences[vertex][sizes[vertex] ++] = edge;
+            }
+        }
+
+        return incidences;
+    }
+
+    /**
+     The first item put into seen with the same sorted list as the given one, or -1 after putting it there. Lists are
+     bucketed by their hash, so only the lists of a bucket are compared.
+     */
+    private static int firstEqual(HashMap<Integer, ArrayList<Integer>> seen, int[][] lists, int item){
+        ArrayList<Integer> bucket = seen.computeIfAbsent(Arrays.hashCode(lists[item]), key -> new ArrayList<>());
+
+        for(int other : bucket){
+            if(Arrays.equals(lists[other], lists[item])){
+                return other;
+            }
+        }
+
+        bucket.add(item);
+
+        return -1;
+    }
+
+    private static boolean mergeTwins(int[][] edges, IntBitSet aliveEdges, IntBitSet aliveVertices, int[] mergedInto){
+        int[][] incidences = incidences(edges, aliveEdges, mergedInto.length);
+        HashMap<Integer, ArrayList<Integer>> representatives = new HashMap<>();
+        boolean changed = false;
+
+        for(int vertex = aliveVertices.nextSetBit(0); vertex >= 0; vertex = aliveVertices.nextSetBit(vertex + 1)){
+            int representative = firstEqual(representatives, incidences, vertex);
+
+            if(representative < 0){
+                continue;
+            }
+
+            mergedInto[vertex] = representative;
+            aliveVertices.remove(vertex);
+            changed = true;
+        }
+
+        if(!changed){
+            return false;
+        }
+
+        for(int edge = aliveEdges.nextSetBit(0); edge >= 0; edge = aliveEdges.nextSetBit(edge + 1)){
+            int kept = 0;
+
+            for(int vertex : edges[edge]){
+                if(aliveVertices.contains(vertex)){
+                    kept ++;
+                }
+            }
+
+            if(kept < edges[edge].length){
+                int[] vertices = new int[kept];
+                kept = 0;
+
+                for(int vertex : edges[edge]){
+                    if(aliveVertices.contains(vertex)){
+                        vertices[kept ++] = vertex;
+                    }
+                }
+
+                edges[edge] = vertices;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean dropEdges(int[][] edges, IntBitSet aliveEdges, int numberOfVertices, boolean dropSubsumedEdges){
+        HashMap<Integer, ArrayList<Integer>> distinct = new HashMap<>();
+        boolean changed = false;
+
+        //of two equal edges the first one is kept
+        for(int edge = aliveEdges.nextSetBit(0); edge >= 0; edge = aliveEdges.nextSetBit(edge + 1)){
+            if(firstEqual(distinct, edges, edge) >= 0){
+                aliveEdges.remove(edge);
+                changed = true;
+            }
+        }
+
+        if(!dropSubsumedEdges){
+            return changed;
+        }
+
+        //an edge inside a larger one holds all of its own vertices, so only the edges on the vertex of smallest
+        //degree are tried. The edges are all distinct now, so the larger one is never dropped for the smaller one
+        int[][] incidences = incidences(edges, aliveEdges, numberOfVertices);
+        boolean[] marked = new boolean[numberOfVertices];
+        int remaining = aliveEdges.cardinality();
+
+        for(int edge = aliveEdges.nextSetBit(0); edge >= 0; edge = aliveEdges.nextSetBit(edge + 1)){
+            int rarest = -1;
+            boolean subsumed = edges[edge].length == 0 && remaining > 1;
+
+            for(int vertex : edges[edge]){
+                marked[vertex] = true;
+
+                if(rarest < 0 || incidences[vertex].length < incidences[rarest].length){
+                    rarest = vertex;
+                }
+            }
+
+            for(int index = 0; rarest >= 0 && index < incidences[rarest].length && !subsumed; ++index){
+                int other = incidences[rarest][index];
+                int met = 0;
+
+                if(other == edge || !aliveEdges.contains(other) || edges[other].length <= edges[edge].length){
+                    continue;
+                }
+
+                for(int vertex : edges[other]){
+                    if(marked[vertex]){
+                        met ++;
+                    }
+                }
+
+                subsumed = met == edges[edge].length;
+            }
+
+            for(int vertex : edges[edge]){
+                marked[vertex] = false;
+            }
+
+            if(subsumed){
+                aliveEdges.remove(edge);
+                remaining --;
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     Decomposes the reduced hypergraph with the engine built for it and expands the result back to the original one.
+     Returns null if the engine finds no decomposition of width at most the given one.
+     */
+    public HypertreeDecomposition<T> findDecomposition(Function<Hypergraph<T>, DecompositionEngine<T>> engine, int width){
+        return expand(engine.apply(this.reduced).findDecomposition(width));
+    }
+
+    /**
+     Turns a decomposition of the reduced hypergraph into one of the original hypergraph, keeping the shape of the
+     tree. Returns null for null.
+     */
+    public HypertreeDecomposition<T> expand(HypertreeDecomposition<T> decomposition){
+        if(decomposition == null){
+            return null;
+        }
+
+        ArrayList<Set<T>> bags = new ArrayList<>();
+        ArrayList<Set<Integer>> guards = new ArrayList<>();
+        int[] parents = new int[decomposition.size()];
+
+        for(int node = 0; node < decomposition.size(); ++node){
+            bags.add(new HashSet<>(decomposition.bag(node)));
+            guards.add(decomposition.guard(node));
+            parents[node] = decomposition.parent(node);
+        }
+
+        expandBags(bags);
+        expandGuards(guards);
+
+        return new HypertreeDecomposition<>(bags, guards, parents, decomposition.isGeneralized());
+    }
+
+    /**
+     Adds the merged vertices back to bags of a decomposition of the reduced hypergraph.
+     */
+    public void expandBags(List<Set<T>> bags){
+        for(Set<T> bag : bags){
+            ArrayList<T> merged = new ArrayList<>();
+
+            for(T vertex : bag){
+                merged.addAll(this.twins.getOrDefault(vertex, new ArrayList<>()));
+            }
+
+            bag.addAll(merged);
+        }
+    }
+
+    /**
+     Renames the edges of guards of the reduced hypergraph to their indices in the original one.
+     */
+    public void expandGuards(List<Set<Integer>> guards){
+        for(int index = 0; index < guards.size(); ++index){
+            Set<Integer> guard = new HashSet<>();
+
+            for(int edge : guards.get(index)){
+                guard.add(this.originalEdges[edge]);
+            }
+
+            guards.set(index, guard);
+        }
+    }
+
+    /**
+     Same as above for the weighted guards of a fractional decomposition.
+     */
+    public void expandFractionalGuards(List<HashMap<Integer, Double>> guards){
+        for(int index = 0; index < guards.size(); ++index){
+            HashMap<Integer, Double> guard = new HashMap<>();
+
+            for(Map.Entry<Integer, Double> weight : guards.get(index).entrySet()){
+                guard.put(this.originalEdges[weight.getKey()], weight.getValue());
+            }
+
+            guards.set(index, guard);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return "removed " + this.removedEdges + " of " + this.original.hyperedges.size() + " edges and "
+                + this.removedVertices + " of " + this.original.vertexToHyperedge.size() + " vertices";
+    }
+
+    public static void main(String[] args){
+
+        //a triangle with private vertices on its edges, the twins 5 and 7 and two copies of its first edge
+        Hypergraph<Integer> myHypergraph = new Hypergraph<>();
+
+        myHypergraph.addHyperEdge(new ArrayList<>(Arrays.asList(1, 2, 4)));
+        myHypergraph.addHyperEdge(new ArrayList<>(Arrays.asList(2, 3, 5, 7)));
+        myHypergraph.addHyperEdge(new ArrayList<>(Arrays.asList(3, 1, 6)));
+        myHypergraph.addHyperEdge(new ArrayList<>(Arrays.asList(1, 2, 4)));
+        myHypergraph.addHyperEdge(new ArrayList<>(Arrays.asList(4, 1, 2)));
+
+        HypergraphReduction<Integer> reduction = new HypergraphReduction<>(myHypergraph);
+        HypertreeDecomposition<Integer> decomposition = HDSolver.findReducedDecomposition(myHypergraph, 2);
+
+        System.out.println(reduction);
+        System.out.println(decomposition);
+        System.out.println("Valid: " + DecompositionValidator.isValid(myHypergraph, decomposition));
+        System.out.println("Width 1: " + HDSolver.findReducedDecomposition(myHypergraph, 1));
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.*;
+
+/**
+ An immutable hypertree decomposition: a rooted tree with a bag of vertices and a guard of edges on every node. Nodes
+ are numbered so that every parent comes before its children, the root being node 0. Guards hold edge indices of the
+ hypergraph that was decomposed. A generalized decomposition does not have to meet the special condition, and
+ DecompositionValidator only checks it on the others.
+ */
+public final class HypertreeDecomposition<T extends Comparable<? super T>> {
+
+    private final List<Set<T>> bags;
+    private final List<Set<Integer>> guards;
+    private final int[] parents;
+    private final int[][] children;
+    private final int width;
+    private final boolean generalized;
+
+    /**
+     Builds the tree from its nodes. parents[i] is the parent of node i, and must be smaller than i except for the
+     root, node 0, whose parent is -1.
+     */
+    public HypertreeDecomposition(List<Set<T>> bags, List<Set<Integer>> guards, int[] parents){
+        this(bags, guards, parents, false);
+    }
+
+    /**
+     Same as above, for a generalized hypertree decomposition if generalized is set.
+     */
+    public HypertreeDecomposition(List<Set<T>> bags, List<Set<Integer>> guards, int[] parents, boolean generalized){
+        if(bags.size() != guards.size() || bags.size() != parents.length){
+            throw new IllegalArgumentException("bags, guards and parents must have one entry per node");
+        }
+
+        ArrayList<Set<T>> frozenBags = new ArrayList<>();
+        ArrayList<Set<Integer>> frozenGuards = new ArrayList<>();
+        int[] numberOfChildren = new int[parents.length];
+        int width = 0;
+
+        for(int node = 0; node < parents.length; ++node){
+            if(node == 0 ? parents[node] != -1 : parents[node] < 0 || parents[node] >= node){
+                throw new IllegalArgumentException("node " + node + " has parent " + parents[node]);
+            }
+
+            if(node > 0){
+                numberOfChildren[parents[node]] ++;
+            }
+
+            frozenBags.add(Collections.unmodifiableSet(new HashSet<>(bags.get(node))));
+            frozenGuards.add(Collections.unmodifiableSet(new HashSet<>(guards.get(node))));
+            width = Math.max(width, guards.get(node).size());
+        }
+
+        this.bags = Collections.unmodifiableList(frozenBags);
+        this.guards = Collections.unmodifiableList(frozenGuards);
+        this.parents = parents.clone();
+        this.children = new int[parents.length][];
+        this.width = width;
+        this.generalized = generalized;
+
+        for(int node = 0; node < parents.length; ++node){
+            this.children[node] = new int[numberOfChildren[node]];
+            numberOfChildren[node] = 0;
+        }
+
+        for(int node = 1; node < parents.length; ++node){
+            this.children[parents[node]][numberOfChildren[parents[node]] ++] = node;
+        }
+    }
+
+    public int size(){
+        return this.parents.length;
+    }
+
+    public Set<T> bag(int node){
+        return this.bags.get(node);
+    }
+
+    public Set<Integer> guard(int node){
+        return this.guards.get(node);
+    }
+
+    /**
+     The parent of the node, -1 for the root.
+     */
+    public int parent(int node){
+        return this.parents[node];
+    }
+
+    public int[] children(int node){
+        return this.children[node].clone();
+    }
+
+    /**
+     Whether this is only a generalized hypertree decomposition, which may break the special condition.
+     */
+    public boolean isGeneralized(){
+        return this.generalized;
+    }
+
+    /**
+     The largest number of edges in a guard.
+     */
+    public int width(){
+        return this.width;
+    }
+
+    /**
+     Appends the bags and guards in preorder to the lists, the flat form returned by the solvers.
+     */
+    public void toLists(List<Set<T>> bags, List<Set<Integer>> guards){
+        int[] stack = new int[Math.max(size(), 1)];
+        int top = 0;
+
+        if(size() == 0){
+            return;
+        }
+
+        stack[top ++] = 0;
+
+        while(top > 0){
+            int node = stack[-- top];
+
+            bags.add(new HashSet<>(this.bags.get(node)));
+            guards.add(new HashSet<>(this.guards.get(node)));
+
+            for(int index = this.children[node].length - 1; index >= 0; --index){
+                stack[top ++] = this.children[node][index];
+            }
+        }
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder text = new StringBuilder();
+
+        for(int node = 0; node < size(); ++node){
+            text.append(node).append(" <- ").append(this.parents[node]).append(": bag ").append(this.bags.get(node))
+                    .append(" guard ").append(this.guards.get(node)).append('\n');
+        }
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.Arrays;
+
+/**
+ Fixed capacity set of small non-negative ints packed into longs. Used for the sets of vertex ids and edge ids of the
+ compact hypergraph, so unions, intersections and subset tests are plain word loops with no boxing.
+ */
+public final class IntBitSet {
+
+    private final long[] words;
+
+    public IntBitSet(int capacity){
+        this.words = new long[(capacity + 63) >>> 6];
+    }
+
+    private IntBitSet(long[] words){
+        this.words = words;
+    }
+
+    public static IntBitSet of(int capacity, int... values){
+        IntBitSet set = new IntBitSet(capacity);
+
+        for(int value : values){
+            set.add(value);
+        }
+
+        return set;
+    }
+
+    public IntBitSet copy(){
+        return new IntBitSet(this.words.clone());
+    }
+
+    public void add(int value){
+        this.words[value >>> 6] |= 1L << value;
+    }
+
+    public void remove(int value){
+        this.words[value >>> 6] &= ~(1L << value);
+    }
+
+    public boolean contains(int value){
+        return (value >>> 6) < this.words.length && (this.words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    public void clear(){
+        Arrays.fill(this.words, 0L);
+    }
+
+    /**
+     Overwrites this set with the content of the other one.
+     */
+    public void setTo(IntBitSet other){
+        int common = Math.min(this.words.length, other.words.length);
+
+        System.arraycopy(other.words, 0, this.words, 0, common);
+        Arrays.fill(this.words, common, this.words.length, 0L);
+    }
+
+    public void or(IntBitSet other){
+        int common = Math.min(this.words.length, other.words.length);
+
+        for(int index = 0; index < common; ++index){
+            this.words[index] |= other.words[index];
+        }
+    }
+
+    public void and(IntBitSet other){
+        int common = Math.min(this.words.length, other.words.length);
+
+        for(int index = 0; index < common; ++index){
+            this.words[index] &= other.words[index];
+        }
+
+        Arrays.fill(this.words, common, this.words.length, 0L);
+    }
+
+    public void andNot(IntBitSet other){
+        int common = Math.min(this.words.length, other.words.length);
+
+        for(int index = 0; index < common; ++index){
+            this.words[index] &= ~other.words[index];
+        }
+    }
+
+    public static IntBitSet union(IntBitSet first, IntBitSet second){
+        IntBitSet solution = first.copy();
+        solution.or(second);
+
+        return solution;
+    }
+
+    public static IntBitSet intersection(IntBitSet first, IntBitSet second){
+        IntBitSet solution = first.copy();
+        solution.and(second);
+
+        return solution;
+    }
+
+    public boolean intersects(IntBitSet other){
+        int common = Math.min(this.words.length, other.words.length);
+
+        for(int index = 0; index < common; ++index){
+            if((this.words[index] & other.words[index]) != 0){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isSubsetOf(IntBitSet other){
+        int common = Math.min(this.words.length, other.words.length);
+
+        for(int index = 0; index < common; ++index){
+            if((this.words[index] & ~other.words[index]) != 0){
+                return false;
+            }
+        }
+
+        for(int index = common; index < this.words.length; ++index){
+            if(this.words[index] != 0){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     Whether this set is included in the union of the two others, without building the union.
+     */
+    public boolean isSubsetOfUnion(IntBitSet first, IntBitSet second){
+        for(int index = 0; index < this.words.length; ++index){
+            long covering = (index < first.words.length ? first.words[index] : 0) | (index < second.words.length ? second.words[index] : 0);
+
+            if((this.words[index] & ~covering) != 0){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean isEmpty(){
+        for(long word : this.words){
+            if(word != 0){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int cardinality(){
+        int count = 0;
+
+        for(long word : this.words){
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    /**
+     Returns the first element greater or equal to from, or -1 if there is none.
+     */
+    public int nextSetBit(int from){
+        int index = from >>> 6;
+
+        if(index >= this.words.length){
+            return -1;
+        }
+
+        long word = this.words[index] & (-1L << from);
+
+        while(true){
+            if(word != 0){
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+
+            if(++index == this.words.length){
+                return -1;
+            }
+
+            word = this.words[index];
+        }
+    }
+
+    /**
+     Rough size of this set on the heap, used to keep the caches within their memory budget.
+     */
+    public long estimatedBytes(){
+        return 32 + 8L * this.words.length;
+    }
+
+    public int[] toArray(){
+        int[] solution = new int[cardinality()];
+        int position = 0;
+
+        for(int value = nextSetBit(0); value >= 0; value = nextSetBit(value + 1)){
+            solution[position ++] = value;
+        }
+
+        return solution;
+    }
+
+    @Override
+    public boolean equals(Object other){
+        return other instanceof IntBitSet && Arrays.equals(this.words, ((IntBitSet) other).words);
+    }
+
+    @Override
+    public int hashCode(){
+        return Arrays.hashCode(this.words);
+    }
+
+    @Override
+    public String toString(){
+        return Arrays.toString(toArray());
+    }
+}
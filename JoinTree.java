@@ -0,0 +1,207 @@
+import java.util.*;
+
+/**
+ The join tree of an alpha-acyclic hypergraph, found by GYO reduction: an edge is an ear when the vertices it shares
+ with the other remaining edges all lie in one of them, its witness. Ears are removed one after the other and hung
+ below their witness. The hypergraph is acyclic exactly when every edge gets removed this way. A join tree with one
+ node per edge, the edge as both bag and guard, is a hypertree decomposition of width 1.
+ */
+public class JoinTree {
+
+    //parents[e] is the witness of edge e, or -1 for the root
+    public final int[] parents;
+    public final int root;
+
+    private JoinTree(int[] parents, int root){
+        this.parents = parents;
+        this.root = root;
+    }
+
+    /**
+     Returns the join tree of the hypergraph, or null when it is not acyclic.
+     */
+    public static JoinTree of(CompactHypergraph<?> hypergraph){
+        int numberOfEdges = hypergraph.numberOfEdges;
+        int[] parents = new int[numberOfEdges];
+        int[] degrees = new int[hypergraph.numberOfVertices];
+        boolean[] shared = new boolean[hypergraph.numberOfVertices];
+        boolean[] removed = new boolean[numberOfEdges];
+        boolean[] queued = new boolean[numberOfEdges];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int remaining = numberOfEdges;
+        int root = -1;
+
+        if(numberOfEdges == 0){
+            return null;
+        }
+
+        for(int vertex = 0; vertex < hypergraph.numberOfVertices; ++vertex){
+            degrees[vertex] = hypergraph.vertexDegree(vertex);
+        }
+
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            queue.add(edge);
+            queued[edge] = true;
+        }
+
+        //removing an edge leaves the other edges fewer witnesses, so an edge only becomes an ear when it shares fewer
+        //vertices, that is when it is the last edge left on one of them. Only that edge is looked at again
+        while(!queue.isEmpty() && remaining > 1){
+            int edge = queue.poll();
+            queued[edge] = false;
+
+            if(removed[edge]){
+                continue;
+            }
+
+            int witness = witness(hypergraph, edge, degrees, removed, shared);
+
+            if(witness == -2){
+                continue;
+            }
+
+            //an edge sharing nothing is the last one of its connected part. The parts are disjoint, so the first
+            //of these edges becomes the root and the next ones hang below it
+            if(witness == -1){
+                witness = root;
+                root = root < 0 ? edge : root;
+            }
+
+            parents[edge] = witness;
+            removed[edge] = true;
+            remaining --;
+
+            for(int index = hypergraph.edgeOffsets[edge]; index < hypergraph.edgeOffsets[edge + 1]; ++index){
+                int vertex = hypergraph.edgeVertices[index];
+                degrees[vertex] --;
+
+                for(int incidence = hypergraph.vertexOffsets[vertex]; incidence < hypergraph.vertexOffsets[vertex + 1] && degrees[vertex] == 1; ++incidence){
+                    int neighbour = hypergraph.vertexEdges[incidence];
+
+                    if(!removed[neighbour] && !queued[neighbour]){
+                        queue.add(neighbour);
+                        queued[neighbour] = true;
+                    }
+                }
+            }
+        }
+
+        if(remaining > 1){
+            return null;
+        }
+
+        //the last edge left closes its connected part like the ones above
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            if(!removed[edge]){
+                parents[edge] = root;
+                root = root < 0 ? edge : root;
+            }
+        }
+
+        return new JoinTree(parents, root);
+    }
+
+    /**
+     The witness of the edge if it is an ear, -1 if it shares no vertex with the remaining edges and -2 if it is not
+     an ear. Any witness contains the first shared vertex, so only the edges on that vertex are tried. shared marks
+     the shared vertices during the call and is all false again after it.
+     */
+    private static int witness(CompactHypergraph<?> hypergraph, int edge, int[] degrees, boolean[] removed, boolean[] shared){
+        int first = -1;
+        int size = 0;
+        int witness = -2;
+
+        for(int index = hypergraph.edgeOffsets[edge]; index < hypergraph.edgeOffsets[edge + 1]; ++index){
+            if(degrees[hypergraph.edgeVertices[index]] > 1){
+                shared[hypergraph.edgeVertices[index]] = true;
+                first = first < 0 ? hypergraph.edgeVertices[index] : first;
+                size ++;
+            }
+        }
+
+        if(first < 0){
+            return -1;
+        }
+
+        for(int incidence = hypergraph.vertexOffsets[first]; incidence < hypergraph.vertexOffsets[first + 1] && witness < 0; ++incidence){
+            int candidate = hypergraph.vertexEdges[incidence];
+            int met = 0;
+
+            if(candidate == edge || removed[candidate]){
+                continue;
+            }
+
+            for(int index = hypergraph.edgeOffsets[candidate]; index < hypergraph.edgeOffsets[candidate + 1]; ++index){
+                if(shared[hypergraph.edgeVertices[index]]){
+                    met ++;
+                }
+            }
+
+            if(met == size){
+                witness = candidate;
+            }
+        }
+
+        for(int index = hypergraph.edgeOffsets[edge]; index < hypergraph.edgeOffsets[edge + 1]; ++index){
+            shared[hypergraph.edgeVertices[index]] = false;
+        }
+
+        return witness;
+    }
+
+    /**
+     The join tree as a decomposition of width 1, in preorder from the root.
+     */
+    public DecompositionFragment toFragment(CompactHypergraph<?> hypergraph){
+        int numberOfEdges = this.parents.length;
+        int[] childOffsets = new int[numberOfEdges + 1];
+        int[] children = new int[numberOfEdges];
+
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            if(this.parents[edge] >= 0){
+                childOffsets[this.parents[edge] + 1] ++;
+            }
+        }
+
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            childOffsets[edge + 1] += childOffsets[edge];
+        }
+
+        int[] fill = Arrays.copyOf(childOffsets, numberOfEdges);
+
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            if(this.parents[edge] >= 0){
+                children[fill[this.parents[edge]] ++] = edge;
+            }
+        }
+
+        ArrayList<IntBitSet> bags = new ArrayList<>();
+        ArrayList<Set<Integer>> guards = new ArrayList<>();
+        int[] nodeParents = new int[numberOfEdges];
+        int[] nodeOfEdge = new int[numberOfEdges];
+        int[] stack = new int[numberOfEdges];
+        int top = 0;
+
+        stack[top ++] = this.root;
+
+        while(top > 0){
+            int edge = stack[-- top];
+
+            nodeOfEdge[edge] = bags.size();
+            nodeParents[bags.size()] = this.parents[edge] < 0 ? -1 : nodeOfEdge[this.parents[edge]];
+
+            Set<Integer> guard = new HashSet<>();
+            guard.add(edge);
+
+            bags.add(hypergraph.edgeSet(edge));
+            guards.add(guard);
+
+            //pushed backwards so the children come out in increasing order
+            for(int index = childOffsets[edge + 1] - 1; index >= childOffsets[edge]; --index){
+                stack[top ++] = children[index];
+            }
+        }
+
+        return new DecompositionFragment(bags, guards, nodeParents);
+    }
+}
@@ -0,0 +1,73 @@
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ Bounds a search by a wall-clock deadline, a number of guard candidates and a number of LP calls. It is the root
+ Cancellation of the search, so once any bound is reached every branch below it sees itself cancelled and gives up
+ without caching anything. A search that stops this way answers UNKNOWN, which is not the same as NO: there may be a
+ decomposition it did not get to. A budget is meant for a single search, its counters are never reset.
+ */
+public class SearchBudget extends Cancellation {
+
+    public enum Outcome {YES, NO, UNKNOWN}
+
+    //System.nanoTime() at which the time runs out, only read when hasDeadline
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final long maximumGuardCandidates;
+    private final long maximumLpCalls;
+
+    private final AtomicLong guardCandidates = new AtomicLong();
+    private final AtomicLong lpCalls = new AtomicLong();
+
+    /**
+     A null time limit means no deadline, and a limit of Long.MAX_VALUE on the candidates or the LP calls means no
+     limit on them.
+     */
+    public SearchBudget(Duration timeLimit, long maximumGuardCandidates, long maximumLpCalls){
+        super(null);
+        this.hasDeadline = timeLimit != null;
+        this.deadline = timeLimit == null ? 0 : System.nanoTime() + timeLimit.toNanos();
+        this.maximumGuardCandidates = maximumGuardCandidates;
+        this.maximumLpCalls = maximumLpCalls;
+    }
+
+    public static SearchBudget unlimited(){
+        return new SearchBudget(null, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchBudget ofTime(Duration timeLimit){
+        return new SearchBudget(timeLimit, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void countGuardCandidate(){
+        this.guardCandidates.incrementAndGet();
+    }
+
+    public void countLpCall(){
+        this.lpCalls.incrementAndGet();
+    }
+
+    public long guardCandidates(){
+        return this.guardCandidates.get();
+    }
+
+    public long lpCalls(){
+        return this.lpCalls.get();
+    }
+
+    /**
+     Whether some bound was reached. Once true it stays true.
+     */
+    public boolean isExhausted(){
+        return this.guardCandidates.get() > this.maximumGuardCandidates
+                || this.lpCalls.get() > this.maximumLpCalls
+                || (this.hasDeadline && System.nanoTime() - this.deadline > 0);
+    }
+
+    @Override
+    public boolean isCancelled(){
+        return super.isCancelled() || isExhausted();
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ The answer of a search run under a SearchBudget. The decomposition is the one found for YES. For UNKNOWN it is the
+ best decomposition found before the budget ran out, if any, and for NO it is null.
+ */
+public final class SearchResult<T extends Comparable<? super T>> {
+
+    public final SearchBudget.Outcome outcome;
+    public final HypertreeDecomposition<T> decomposition;
+
+    public SearchResult(SearchBudget.Outcome outcome, HypertreeDecomposition<T> decomposition){
+        this.outcome = outcome;
+        this.decomposition = decomposition;
+    }
+
+    @Override
+    public String toString(){
+        return this.outcome + (this.decomposition == null ? "" : " of width " + this.decomposition.width());
+    }
+}
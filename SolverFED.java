@@ -1,101 +1,11 @@
-import scpsolver.constraints.LinearBiggerThanEqualsConstraint;
-import scpsolver.lpsolver.LinearProgramSolver;
-import scpsolver.lpsolver.SolverFactory;
-import scpsolver.problems.LinearProgram;
-
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.HashMap;
 
 public class SolverFED {
 
-    public static Hypergraph<Integer> getPartialHypergraph(Hypergraph<Integer> fullHypergraph, ArrayList<Integer> verticesForThisNode){
-
-        Hypergraph<Integer> partialHypergraph = new Hypergraph<>();
-        HashMap<Integer, Integer> newEdge;
-        boolean isContained = false;
-        boolean isContainedOriginal = false;
-
-        for(int vertex : verticesForThisNode){
-            for(int coveringEdge : fullHypergraph.vertexToHyperedge.get(vertex).keySet()){
-                newEdge = new HashMap<>();
-
-                for(int vertexCovered : fullHypergraph.hyperedges.get(coveringEdge).keySet()){
-                    if( verticesForThisNode.contains(vertexCovered)){
-                        newEdge.put(vertexCovered, coveringEdge);
-                    }
-                }
-
-                if(partialHypergraph.hyperedges.size() == 0){
-                    partialHypergraph.addHyperEdge(newEdge);
-                }
-                else {
-                    for (Map<Integer, Integer> usedEdge : partialHypergraph.hyperedges) {
-                        isContained = true;
-
-                        for (int usedVertex : usedEdge.keySet()) {
-                            if (!newEdge.containsKey(usedVertex)) {
-                                isContained = false;
-                                break;
-                            }
-                        }
-                        if (isContained) {
-                            break;
-                        }
-                    }
-
-                    for (Map<Integer, Integer> usedEdge : fullHypergraph.hyperedges) {
-                        isContainedOriginal = true;
-
-                        for (int usedVertex : usedEdge.keySet()) {
-                            if (!newEdge.containsKey(usedVertex)) {
-                                isContainedOriginal = false;
-                                break;
-                            }
-                        }
-                        if (isContainedOriginal) {
-                            break;
-                        }
-                    }
-
-                    if(!isContained || !isContainedOriginal){
-                        partialHypergraph.addHyperEdge(newEdge);
-                    }
-                }
-
-                /*
-                if(partialHypergraph.hyperedges.size() == 0){
-                    partialHypergraph.addHyperEdge(newEdge);
-                }
-                else {
-                    for (Map<Integer, Integer> usedEdge : partialHypergraph.hyperedges) {
-                        isContained = true;
-
-                        for (int usedVertex : usedEdge.keySet()) {
-                            if (!newEdge.containsKey(usedVertex)) {
-                                isContained = false;
-                                break;
-                            }
-                        }
-
-                        if (isContained) {
-                            break;
-                        }
-                    }
-
-                    if(! isContained){
-                        partialHypergraph.addHyperEdge(newEdge);
-                    }
-                }
-                */
-            }
-        }
-
-        return partialHypergraph;
-    }
-
     public static boolean solveForHypergraph(Hypergraph<Integer> myHypergraph,
                                              float limitK,
                                              float epsilon,
@@ -107,89 +17,86 @@ public class SolverFED {
             return true;
         }
 
-        int sizeOfGuards = guards.size();
-        Hypergraph<Integer> partialHypergraph = getPartialHypergraph(myHypergraph, wForThisNode);
-
+        return fits(fractionalCover(myHypergraph, wForThisNode), limitK, epsilon, guards);
+    }
 
-        // Create the linear solver with the GLOP backend.
-        double[] parametersForEdges = new double[partialHypergraph.hyperedges.size()];
-        double[] constraintOnEdge = new double[partialHypergraph.hyperedges.size()];
-        double[] constraintOnVertex = new double[partialHypergraph.hyperedges.size()];
+    /**
+     Adds the weights of the cover to the guards and tells whether they stay within limitK + epsilon, counting the
+     guards already there with a weight of 1 each.
+     */
+    public static boolean fits(FractionalCover cover, float limitK, float epsilon, HashMap<Integer, Double> guards){
+        int sizeOfGuards = guards.size();
 
-        for(int index = 0; index < partialHypergraph.hyperedges.size(); ++index){ //all hyperedges have equal weights
-            parametersForEdges[index] = 1.0;
-            constraintOnEdge[index] = 0.0;
-            constraintOnVertex[index] = 0.0;
+        for(int index = 0; index < cover.edges.length; ++index){
+            guards.put(cover.edges[index], cover.weights[index]);
         }
 
-        LinearProgram lp = new LinearProgram(parametersForEdges); //instantiate the solver
-
-        for(int index = 0; index < partialHypergraph.hyperedges.size(); ++index){ //all weights on edges need to be positive
-            constraintOnEdge[index] = 1.0;
-
-            lp.addConstraint(new LinearBiggerThanEqualsConstraint(constraintOnEdge, 0.0, "ce" + Integer.toString(index)));
-            constraintOnEdge[index] = 0.0;
+        if(cover.hasUnitWeight){
+            return false;
         }
 
-        for(int indexVertex : partialHypergraph.vertexToHyperedge.keySet()){ //all vertices need to be covered to at least 1.0
-            for(int indexEdge : partialHypergraph.vertexToHyperedge.get(indexVertex).keySet()){
-                constraintOnVertex[indexEdge] ++;
-            }
+        return cover.value <= limitK + epsilon - sizeOfGuards;
+    }
 
-            lp.addConstraint(new LinearBiggerThanEqualsConstraint(constraintOnVertex, 1.0, "cv" + Integer.toString(indexVertex)));
+    /**
+     Solves the LP of the fractional edge cover of the vertices in wForThisNode, which must not be empty. The weights
+     are only read up to the first one equal to 1, as solveForHypergraph gives up there.
+     */
+    public static FractionalCover fractionalCover(Hypergraph<Integer> myHypergraph, ArrayList<Integer> wForThisNode){
+        CompactHypergraph<Integer> compact = myHypergraph.compact();
+        int[] w = new int[wForThisNode.size()];
 
-            for(int indexEdge : partialHypergraph.vertexToHyperedge.get(indexVertex).keySet()){
-                constraintOnVertex[indexEdge] --;
-            }
+        for(int index = 0; index < w.length; ++index){
+            w[index] = compact.vertexId(wForThisNode.get(index));
         }
 
+        Arrays.sort(w);
 
-        lp.setMinProblem(true);
+        return fractionalCover(compact, w, w.length, new CoverSimplex(), null);
+    }
 
-        LinearProgramSolver solver  = SolverFactory.newDefault();
-        double[] sol = solver.solve(lp);
+    /**
+     Same as above for the first wSize vertex ids of w, in increasing order, solved with the given simplex, whose
+     buffers are reused, and starting from the edges of basisHint when it is not null. The LP only gets one edge for
+     each projection on W that is not contained in another, so the weights go to those edges.
+     */
+    public static FractionalCover fractionalCover(CompactHypergraph<Integer> compact, int[] w, int wSize, CoverSimplex simplex, int[] basisHint){
         double sum = 0;
+        ArrayList<Integer> edges = new ArrayList<>();
+        ArrayList<Double> weights = new ArrayList<>();
 
-        for (int index = 0; index < sol.length; ++index) {
+        simplex.solve(new CoverInstance(compact, w, wSize), basisHint);
 
-            if(sol[index] == 1){ return false;}
+        for (int column = 0; column < simplex.numberOfColumns(); ++column) {
+            double weight = simplex.weight(column);
 
-            if(sol[index] > 0){
-                sum += sol[index];
+            if(weight == 1){
+                return toCover(edges, weights, sum, true);
+            }
 
-                for(int originalEdge : partialHypergraph.hyperedges.get(index).values()) {
-                    guards.put(originalEdge, sol[index]);
-                    break;
-                }
+            if(weight > 0){
+                sum += weight;
+                edges.add(simplex.edge(column));
+                weights.add(weight);
             }
         }
 
-
-        return sum <= limitK + epsilon - sizeOfGuards;
-
+        return toCover(edges, weights, sum, false);
     }
 
-    public static void main(String[] args) {
-        //Hypergraph<Integer> hypergraph = new Hypergraph<>();
-
-       //Map<Integer, Integer> edge = new HashMap<>();
+    private static FractionalCover toCover(ArrayList<Integer> edges, ArrayList<Double> weights, double sum, boolean hasUnitWeight){
+        int[] edgeArray = new int[edges.size()];
+        double[] weightArray = new double[weights.size()];
 
-       // Instant start = Instant.now();
-        /*
-        for(int indexEdge = 0; indexEdge < 100; ++indexEdge){
-            edge = new HashMap<>();
-
-            for (int vertexIndex = 0; vertexIndex < 100; ++vertexIndex) {
-                if(vertexIndex != indexEdge) {
-                    edge.put(vertexIndex, 0);
-                }
-            }
-
-            hypergraph.addHyperEdge(edge);
+        for(int index = 0; index < edgeArray.length; ++index){
+            edgeArray[index] = edges.get(index);
+            weightArray[index] = weights.get(index);
         }
 
-        */
+        return new FractionalCover(edgeArray, weightArray, sum, hasUnitWeight);
+    }
 
+    public static void main(String[] args) {
         Instant start = Instant.now();
         Hypergraph<Integer> hypergraph = new Hypergraph<>();
         //1
@@ -262,47 +169,10 @@ public class SolverFED {
 
         hypergraph.addHyperEdge(newEgde);
 
-        // Create the linear solver with the GLOP backend.
-        double[] parametersForEdges = new double[hypergraph.hyperedges.size()];
-        double[] constraintOnEdge = new double[hypergraph.hyperedges.size()];
-        double[] constraintOnVertex = new double[hypergraph.hyperedges.size()];
-
-        for(int index = 0; index < hypergraph.hyperedges.size(); ++index){ //all hyperedges have equal weights
-            parametersForEdges[index] = 1.0;
-            constraintOnEdge[index] = 0.0;
-            constraintOnVertex[index] = 0.0;
-        }
-
-        LinearProgram lp = new LinearProgram(parametersForEdges); //instantiate the solver
-
-        for(int index = 0; index < hypergraph.hyperedges.size(); ++index){ //all weights on edges need to be positive
-            constraintOnEdge[index] = 1.0;
-
-            lp.addConstraint(new LinearBiggerThanEqualsConstraint(constraintOnEdge, 0.0, "ce" + Integer.toString(index)));
-            constraintOnEdge[index] = 0.0;
-        }
-
-        for(int indexVertex : hypergraph.vertexToHyperedge.keySet()){ //all vertices need to be covered to at least 1.0
-            for(int indexEdge : hypergraph.vertexToHyperedge.get(indexVertex).keySet()){
-                constraintOnVertex[indexEdge] ++;
-            }
-
-            lp.addConstraint(new LinearBiggerThanEqualsConstraint(constraintOnVertex, 1.0, "cv" + Integer.toString(indexVertex)));
-
-            for(int indexEdge : hypergraph.vertexToHyperedge.get(indexVertex).keySet()){
-                constraintOnVertex[indexEdge] --;
-            }
-        }
-
-
-        lp.setMinProblem(true);
-        System.out.println(lp.getConstraints());
-
-        LinearProgramSolver solver  = SolverFactory.newDefault();
-        double[] sol = solver.solve(lp);
-
+        //the cover of all the vertices
+        FractionalCover cover = fractionalCover(hypergraph, new ArrayList<>(hypergraph.vertexToHyperedge.keySet()));
 
-        System.out.println(sol);
+        System.out.println(cover.value + " " + Arrays.toString(cover.edges) + " " + Arrays.toString(cover.weights));
 
         Instant end = Instant.now();
         System.out.println(Duration.between(start, end));
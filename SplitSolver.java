@@ -0,0 +1,358 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ Front-end of HDSolver that cuts the hypergraph into pieces solved on their own, each with a solver of its own, and
+ glues their decompositions back together. The width of the whole is the largest width of a piece.
+ - The connected parts share no vertex, so the root of each part simply hangs below the root of the first one.
+ - Optionally, a connected part is cut further into the blocks of its primal graph, which meet at articulation
+   vertices. Each block but the first is decomposed below a node holding only its articulation vertex a, so its root
+   bag contains a and it can hang below any node of the block above holding a. The glued tree is always a valid
+   hypertree decomposition, but forcing a into the root can cost width on some blocks, so the answer is then an
+   upper bound on the hypertree width rather than the exact value. It is off by default.
+ Bags and guards come out in preorder like for HDSolver, with guards given by the edge indices of the whole hypergraph.
+ */
+public class SplitSolver<T extends Comparable<? super T>> implements DecompositionEngine<T> {
+
+    private final CompactHypergraph<T> compact;
+    private final ArrayList<Piece> pieces = new ArrayList<>();
+
+    //null to solve the pieces one after the other
+    private ForkJoinPool pool = null;
+
+    /**
+     A part of the hypergraph with its own solver. attachedAt is -1 for the root of a connected part, otherwise the
+     articulation vertex it hangs from.
+     */
+    private final class Piece {
+        final Hypergraph<T> hypergraph = new Hypergraph<>();
+        final ArrayList<Integer> originalEdges = new ArrayList<>();
+        final IntBitSet vertices;
+        final int attachedAt;
+
+        Piece(IntBitSet vertices, int attachedAt){
+            this.vertices = vertices;
+            this.attachedAt = attachedAt;
+        }
+
+        void add(int edge){
+            ArrayList<T> labels = new ArrayList<>();
+
+            for(int index = compact.edgeOffsets[edge]; index < compact.edgeOffsets[edge + 1]; ++index){
+                labels.add(compact.vertex(compact.edgeVertices[index]));
+            }
+
+            this.hypergraph.addHyperEdge(labels);
+            this.originalEdges.add(edge);
+        }
+
+        //the decomposition of this piece of smallest width between the bounds, with the edges of the whole hypergraph,
+        //or null if there is none
+        HypertreeDecomposition<T> solve(int lowerBound, int upperBound){
+            HypertreeDecomposition<T> solution;
+
+            //the decomposition of a block is one of the block alone as well, so its bounds apply either way
+            lowerBound = Math.max(lowerBound, WidthLowerBounds.hypertreeWidth(this.hypergraph.compact()));
+
+            if(lowerBound > upperBound){
+                return null;
+            }
+
+            HDSolver<T> solver = new HDSolver<>(this.hypergraph, upperBound);
+
+            if(this.attachedAt < 0){
+                solution = lowerBound == 1 && upperBound >= this.hypergraph.hyperedges.size()
+                        ? solver.optimalDecomposition()
+                        : solver.optimalDecomposition(lowerBound, upperBound);
+            }
+            else{
+                Set<T> father = new HashSet<>();
+                father.add(compact.vertex(this.attachedAt));
+
+                solution = solver.optimalDecompositionBelow(father, lowerBound, upperBound);
+            }
+
+            if(solution == null){
+                return null;
+            }
+
+            ArrayList<Set<T>> bags = new ArrayList<>();
+            ArrayList<Set<Integer>> guards = new ArrayList<>();
+            int[] parents = new int[solution.size()];
+
+            for(int node = 0; node < solution.size(); ++node){
+                Set<Integer> renamed = new HashSet<>();
+
+                for(int edge : solution.guard(node)){
+                    renamed.add(this.originalEdges.get(edge));
+                }
+
+                bags.add(solution.bag(node));
+                guards.add(renamed);
+                parents[node] = solution.parent(node);
+            }
+
+            return new HypertreeDecomposition<>(bags, guards, parents);
+        }
+    }
+
+    public SplitSolver(Hypergraph<T> hypergraph){
+        this(hypergraph, false);
+    }
+
+    public SplitSolver(Hypergraph<T> hypergraph, boolean splitBlocks){
+        this.compact = hypergraph.compact();
+
+        IntBitSet all = Component.whole(this.compact).vertices;
+
+        for(Component part : ComponentFinder.split(this.compact, all, new IntBitSet(this.compact.numberOfVertices))){
+            if(splitBlocks && part.vertices.cardinality() > 1){
+                addBlocks(part);
+            }
+            else{
+                Piece piece = new Piece(part.vertices, -1);
+
+                for(int edge = part.indicesOfEdges.nextSetBit(0); edge >= 0; edge = part.indicesOfEdges.nextSetBit(edge + 1)){
+                    piece.add(edge);
+                }
+
+                this.pieces.add(piece);
+            }
+        }
+    }
+
+    /**
+     Solves the pieces concurrently on the given pool. Passing null goes back to solving them one after the other.
+     */
+    public void setParallelism(ForkJoinPool pool){
+        this.pool = pool;
+    }
+
+    public int numberOfPieces(){
+        return this.pieces.size();
+    }
+
+    /**
+     Cuts a connected part into the blocks of its primal graph with an iterative Tarjan search. The blocks are added
+     so that the block holding an articulation vertex as an inner vertex comes before the blocks hanging from it.
+     */
+    private void addBlocks(Component part){
+        int numberOfVertices = this.compact.numberOfVertices;
+        int[] discovery = new int[numberOfVertices];
+        int[] low = new int[numberOfVertices];
+        int[] parent = new int[numberOfVertices];
+        int[] incidence = new int[numberOfVertices];
+        int[] cursor = new int[numberOfVertices];
+        int[] stack = new int[numberOfVertices];
+        int[] vertexStack = new int[numberOfVertices];
+        int top = 0;
+        int vertexTop = 0;
+        int time = 0;
+        ArrayList<Piece> found = new ArrayList<>();
+
+        for(int vertex = part.vertices.nextSetBit(0); vertex >= 0; vertex = part.vertices.nextSetBit(vertex + 1)){
+            incidence[vertex] = this.compact.vertexOffsets[vertex];
+            cursor[vertex] = incidence[vertex] < this.compact.vertexOffsets[vertex + 1] ? this.compact.edgeOffsets[this.compact.vertexEdges[incidence[vertex]]] : 0;
+        }
+
+        int root = part.vertices.nextSetBit(0);
+
+        discovery[root] = low[root] = ++time;
+        parent[root] = -1;
+        stack[top ++] = root;
+        vertexStack[vertexTop ++] = root;
+
+        //the neighbours of a vertex are walked through its edges: incidence is the edge being walked in vertexEdges and
+        //cursor the next vertex of that edge in edgeVertices. A neighbour met again through another edge changes nothing
+        while(top > 0){
+            int vertex = stack[top - 1];
+            int next = -1;
+
+            while(next < 0 && incidence[vertex] < this.compact.vertexOffsets[vertex + 1]){
+                int edge = this.compact.vertexEdges[incidence[vertex]];
+
+                if(cursor[vertex] < this.compact.edgeOffsets[edge + 1]){
+                    next = this.compact.edgeVertices[cursor[vertex] ++];
+                    next = next == vertex ? -1 : next;
+                }
+                else if(++ incidence[vertex] < this.compact.vertexOffsets[vertex + 1]){
+                    cursor[vertex] = this.compact.edgeOffsets[this.compact.vertexEdges[incidence[vertex]]];
+                }
+            }
+
+            if(next >= 0){
+                if(discovery[next] == 0){
+                    discovery[next] = low[next] = ++time;
+                    parent[next] = vertex;
+                    stack[top ++] = next;
+                    vertexStack[vertexTop ++] = next;
+                }
+                else if(next != parent[vertex]){
+                    low[vertex] = Math.min(low[vertex], discovery[next]);
+                }
+
+                continue;
+            }
+
+            top --;
+
+            if(parent[vertex] < 0){
+                continue;
+            }
+
+            int above = parent[vertex];
+            low[above] = Math.min(low[above], low[vertex]);
+
+            //above separates everything discovered from vertex on, which with above makes a block
+            if(low[vertex] >= discovery[above]){
+                IntBitSet block = new IntBitSet(numberOfVertices);
+                int popped;
+
+                do{
+                    popped = vertexStack[-- vertexTop];
+                    block.add(popped);
+                }
+                while(popped != vertex);
+
+                block.add(above);
+                found.add(new Piece(block, above));
+            }
+        }
+
+        //blocks are found below the ones they hang from, so the reverse order puts every block after its parent. The
+        //first one contains the root of the search and is solved without any father
+        Collections.reverse(found);
+        IntBitSet assigned = new IntBitSet(this.compact.numberOfEdges);
+
+        for(int index = 0; index < found.size(); ++index){
+            Piece block = index == 0 ? new Piece(found.get(index).vertices, -1) : found.get(index);
+
+            //every edge lies inside one block. An edge with a single vertex goes to the first block holding it. Only
+            //the edges on the vertices of the block can lie inside it
+            ArrayList<Integer> inside = new ArrayList<>();
+
+            for(int vertex = block.vertices.nextSetBit(0); vertex >= 0; vertex = block.vertices.nextSetBit(vertex + 1)){
+                for(int entry = this.compact.vertexOffsets[vertex]; entry < this.compact.vertexOffsets[vertex + 1]; ++entry){
+                    int edge = this.compact.vertexEdges[entry];
+
+                    if(!assigned.contains(edge) && this.compact.edgeSubsetOf(edge, block.vertices)){
+                        assigned.add(edge);
+                        inside.add(edge);
+                    }
+                }
+            }
+
+            Collections.sort(inside);
+
+            for(int edge : inside){
+                block.add(edge);
+            }
+
+            this.pieces.add(block);
+        }
+    }
+
+    /**
+     Finds the smallest width of a decomposition of the whole hypergraph and fills in such a decomposition.
+     */
+    public int optimalWidth(ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        HypertreeDecomposition<T> solution = optimalDecomposition();
+
+        solution.toLists(bags, guards);
+
+        return solution.width();
+    }
+
+    /**
+     Looks for a decomposition of width at most limitK of the whole hypergraph. The lists are only filled in when
+     there is one.
+     */
+    public boolean Kdecomposable(int limitK, ArrayList<Set<T>> bags, ArrayList<Set<Integer>> guards){
+        HypertreeDecomposition<T> solution = findDecomposition(limitK);
+
+        if(solution == null){
+            return false;
+        }
+
+        solution.toLists(bags, guards);
+
+        return true;
+    }
+
+    public HypertreeDecomposition<T> optimalDecomposition(){
+        return solve(1, Integer.MAX_VALUE);
+    }
+
+    /**
+     Returns a decomposition of width at most limitK of the whole hypergraph, or null if there is none.
+     */
+    @Override
+    public HypertreeDecomposition<T> findDecomposition(int limitK){
+        return solve(limitK, limitK);
+    }
+
+    private HypertreeDecomposition<T> solve(int lowerBound, int upperBound){
+        ArrayList<HypertreeDecomposition<T>> solutions = new ArrayList<>();
+
+        if(this.pool == null){
+            for(Piece piece : this.pieces){
+                solutions.add(piece.solve(lowerBound, upperBound));
+            }
+        }
+        else{
+            ArrayList<ForkJoinTask<HypertreeDecomposition<T>>> tasks = new ArrayList<>();
+
+            for(Piece piece : this.pieces){
+                tasks.add(this.pool.submit(() -> piece.solve(lowerBound, upperBound)));
+            }
+
+            for(ForkJoinTask<HypertreeDecomposition<T>> task : tasks){
+                solutions.add(task.join());
+            }
+        }
+
+        if(solutions.contains(null)){
+            return null;
+        }
+
+        return glue(solutions);
+    }
+
+    private HypertreeDecomposition<T> glue(ArrayList<HypertreeDecomposition<T>> solutions){
+        ArrayList<Set<T>> bags = new ArrayList<>();
+        ArrayList<Set<Integer>> guards = new ArrayList<>();
+        ArrayList<Integer> parents = new ArrayList<>();
+
+        for(int index = 0; index < solutions.size(); ++index){
+            HypertreeDecomposition<T> solution = solutions.get(index);
+            int offset = bags.size();
+            int rootParent = offset == 0 ? -1 : 0;
+
+            //a block hangs below the first node holding its articulation vertex, which comes from a block glued
+            //before. The roots of the other connected parts hang below the first root
+            if(this.pieces.get(index).attachedAt >= 0){
+                T articulation = this.compact.vertex(this.pieces.get(index).attachedAt);
+                rootParent = 0;
+
+                while(!bags.get(rootParent).contains(articulation)){
+                    rootParent ++;
+                }
+            }
+
+            for(int node = 0; node < solution.size(); ++node){
+                bags.add(solution.bag(node));
+                guards.add(solution.guard(node));
+                parents.add(node == 0 ? rootParent : offset + solution.parent(node));
+            }
+        }
+
+        int[] parentArray = new int[parents.size()];
+
+        for(int node = 0; node < parentArray.length; ++node){
+            parentArray[node] = parents.get(node);
+        }
+
+        return new HypertreeDecomposition<>(bags, guards, parentArray);
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.Arrays;
+
+/**
+ Canonical key of a subproblem of the top-down search: the edges and vertices of the component together with the
+ vertices it shares with the node above (the connector). Two calls with equal keys have the same answer and produce
+ the same bags and guards, so the result can be reused.
+ */
+public final class SubproblemKey {
+
+    private final boolean hasFather;
+    private final IntBitSet[] parts;
+    private final int hash;
+
+    public SubproblemKey(boolean hasFather, IntBitSet... parts){
+        this.hasFather = hasFather;
+        this.parts = parts;
+        this.hash = 31 * Arrays.hashCode(parts) + (hasFather ? 1 : 0);
+    }
+
+    /**
+     Rough size of this key on the heap, used to keep the caches within their memory budget.
+     */
+    public long estimatedBytes(){
+        long bytes = 48 + 8L * this.parts.length;
+
+        for(IntBitSet part : this.parts){
+            bytes += part.estimatedBytes();
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object other){
+        if(!(other instanceof SubproblemKey)){
+            return false;
+        }
+
+        SubproblemKey key = (SubproblemKey) other;
+
+        return this.hash == key.hash && this.hasFather == key.hasFather && Arrays.equals(this.parts, key.parts);
+    }
+
+    @Override
+    public int hashCode(){
+        return this.hash;
+    }
+}
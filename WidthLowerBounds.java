@@ -0,0 +1,382 @@
+import java.util.*;
+
+/**
+ Cheap lower bounds on the widths of a hypergraph, so the solvers can skip the widths that cannot work without
+ searching. Both come from bags every decomposition must have:
+ - the treewidth of the primal graph is at least its contraction degeneracy d, so some bag has at least d + 1
+   vertices, and covering it needs at least as many edges as it takes the largest edges to reach d + 1 vertices;
+ - every clique of the primal graph lies inside some bag, so the bag needs at least the fractional cover number of
+   the clique, which is bounded from below by any fractional packing of its vertices.
+ The bounds hold for the generalized and the fractional hypertree width, and so for the hypertree width as well. The
+ primal graph is kept as adjacency sets built from the CSR incidences and vertices of smallest degree come out of a
+ bucket queue, so both bounds take time close to the size of the primal graph.
+ */
+public final class WidthLowerBounds {
+
+    private WidthLowerBounds(){
+    }
+
+    /**
+     A number of edges that no hypertree decomposition of the hypergraph can go below.
+     */
+    public static int hypertreeWidth(CompactHypergraph<?> hypergraph){
+        if(hypergraph.numberOfEdges == 0){
+            return 0;
+        }
+
+        PrimalGraph graph = new PrimalGraph(hypergraph);
+
+        //a cover is made of whole edges, so the fractional bound rounds up
+        return Math.max(edgesToCover(hypergraph, contractionDegeneracy(graph) + 1),
+                (int) Math.ceil(cliquePacking(hypergraph, graph) - 1e-9));
+    }
+
+    /**
+     A weight that no fractional hypertree decomposition of the hypergraph can go below.
+     */
+    public static double fractionalHypertreeWidth(CompactHypergraph<?> hypergraph){
+        if(hypergraph.numberOfEdges == 0){
+            return 0;
+        }
+
+        PrimalGraph graph = new PrimalGraph(hypergraph);
+        int largestEdge = 0;
+
+        for(int edge = 0; edge < hypergraph.numberOfEdges; ++edge){
+            largestEdge = Math.max(largestEdge, hypergraph.edgeSize(edge));
+        }
+
+        return Math.max(Math.max(1, (contractionDegeneracy(graph) + 1) / (double) largestEdge), cliquePacking(hypergraph, graph));
+    }
+
+    /**
+     The primal graph in the same CSR layout as the hypergraph: the neighbours of vertex v, sorted, are
+     neighbours[offsets[v]] to neighbours[offsets[v + 1] - 1].
+     */
+    private static final class PrimalGraph {
+        final int[] offsets;
+        final int[] neighbours;
+
+        PrimalGraph(CompactHypergraph<?> hypergraph){
+            int[] seen = new int[hypergraph.numberOfVertices];
+            int[] found = new int[16];
+            int size = 0;
+
+            Arrays.fill(seen, -1);
+            this.offsets = new int[hypergraph.numberOfVertices + 1];
+
+            for(int vertex = 0; vertex < hypergraph.numberOfVertices; ++vertex){
+                seen[vertex] = vertex;
+
+                for(int incidence = hypergraph.vertexOffsets[vertex]; incidence < hypergraph.vertexOffsets[vertex + 1]; ++incidence){
+                    int edge = hypergraph.vertexEdges[incidence];
+
+                    for(int index = hypergraph.edgeOffsets[edge]; index < hypergraph.edgeOffsets[edge + 1]; ++index){
+                        int other = hypergraph.edgeVertices[index];
+
+                        if(seen[other] != vertex){
+                            seen[other] = vertex;
+
+                            if(size == found.length){
+                                found = Arrays.copyOf(found, 2 * size);
+                            }
+
+                            found[size ++] = other;
+                        }
+                    }
+                }
+
+                Arrays.sort(found, this.offsets[vertex], size);
+                this.offsets[vertex + 1] = size;
+            }
+
+            this.neighbours = Arrays.copyOf(found, size);
+        }
+
+        int degree(int vertex){
+            return this.offsets[vertex + 1] - this.offsets[vertex];
+        }
+    }
+
+    /**
+     The vertices of a graph by degree, read from a degrees array the caller keeps up to date. A vertex is pushed again
+     whenever its degree changes, and the entries it leaves behind are skipped when they come out.
+     */
+    private static final class DegreeQueue {
+        private final ArrayList<ArrayDeque<Integer>> buckets = new ArrayList<>();
+        private final int[] degrees;
+        private final boolean[] removed;
+        private int minimum = 0;
+
+        DegreeQueue(int[] degrees){
+            this.degrees = degrees;
+            this.removed = new boolean[degrees.length];
+
+            for(int vertex = degrees.length - 1; vertex >= 0; --vertex){
+                push(vertex);
+            }
+        }
+
+        void push(int vertex){
+            while(this.buckets.size() <= this.degrees[vertex]){
+                this.buckets.add(new ArrayDeque<>());
+            }
+
+            this.buckets.get(this.degrees[vertex]).push(vertex);
+            this.minimum = Math.min(this.minimum, this.degrees[vertex]);
+        }
+
+        //removes a remaining vertex of smallest degree, which is left in minimum
+        int pop(){
+            while(true){
+                while(this.buckets.get(this.minimum).isEmpty()){
+                    this.minimum ++;
+                }
+
+                int vertex = this.buckets.get(this.minimum).pop();
+
+                if(!this.removed[vertex] && this.degrees[vertex] == this.minimum){
+                    this.removed[vertex] = true;
+
+                    return vertex;
+                }
+            }
+        }
+    }
+
+    /**
+     The largest minimum degree met while repeatedly contracting a vertex of minimum degree into its neighbour of
+     smallest degree. Contractions give minors, and the treewidth of a minor never exceeds the one of the graph.
+     */
+    private static int contractionDegeneracy(PrimalGraph graph){
+        int numberOfVertices = graph.offsets.length - 1;
+        ArrayList<HashSet<Integer>> neighbours = new ArrayList<>(numberOfVertices);
+        int[] degrees = new int[numberOfVertices];
+        int bound = 0;
+
+        //contracting changes the graph, so every vertex gets its own set
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            HashSet<Integer> around = new HashSet<>();
+
+            for(int index = graph.offsets[vertex]; index < graph.offsets[vertex + 1]; ++index){
+                around.add(graph.neighbours[index]);
+            }
+
+            neighbours.add(around);
+            degrees[vertex] = around.size();
+        }
+
+        DegreeQueue queue = new DegreeQueue(degrees);
+
+        for(int step = 1; step < numberOfVertices; ++step){
+            int chosen = queue.pop();
+            HashSet<Integer> around = neighbours.get(chosen);
+
+            bound = Math.max(bound, degrees[chosen]);
+
+            int into = -1;
+
+            for(int vertex : around){
+                if(into < 0 || degrees[vertex] < degrees[into] || degrees[vertex] == degrees[into] && vertex < into){
+                    into = vertex;
+                }
+            }
+
+            //an isolated vertex is simply deleted, otherwise its edges move to the neighbour it is contracted into
+            for(int vertex : around){
+                neighbours.get(vertex).remove(chosen);
+
+                if(vertex != into){
+                    neighbours.get(vertex).add(into);
+                    neighbours.get(into).add(vertex);
+                }
+            }
+
+            for(int vertex : around){
+                degrees[vertex] = neighbours.get(vertex).size();
+                queue.push(vertex);
+            }
+
+            around.clear();
+        }
+
+        return bound;
+    }
+
+    //the fewest edges whose sizes add up to the given number of vertices
+    private static int edgesToCover(CompactHypergraph<?> hypergraph, int vertices){
+        int[] sizes = new int[hypergraph.numberOfEdges];
+
+        for(int edge = 0; edge < hypergraph.numberOfEdges; ++edge){
+            sizes[edge] = hypergraph.edgeSize(edge);
+        }
+
+        Arrays.sort(sizes);
+
+        int count = 0;
+
+        for(int index = sizes.length - 1; index >= 0 && vertices > 0; --index){
+            vertices -= sizes[index];
+            count ++;
+        }
+
+        return count;
+    }
+
+    /**
+     A fractional packing of a clique grown greedily from every vertex, keeping the heaviest. Every clique has a
+     first vertex in a degeneracy order, and all its other vertices come later, so a clique is only grown among the
+     later neighbours of its first vertex, of which there are at most the degeneracy. A vertex whose later neighbours
+     all lie in the clique it was taken into would only find part of that clique again, so it starts none. Giving
+     each vertex v of the clique K the weight min 1 / |e and K| over the edges e containing it puts at most 1 on every
+     edge, so the total weight is at most the fractional cover number of K.
+     */
+    private static double cliquePacking(CompactHypergraph<?> hypergraph, PrimalGraph graph){
+        int numberOfVertices = hypergraph.numberOfVertices;
+        int[] degrees = new int[numberOfVertices];
+        int[] position = new int[numberOfVertices];
+        int[] order = new int[numberOfVertices];
+        int[] found = new int[numberOfVertices];
+        int[] mark = new int[numberOfVertices];
+        int[] links = new int[numberOfVertices];
+        int[] candidates = new int[numberOfVertices];
+        int[] dropped = new int[numberOfVertices];
+        int[] members = new int[numberOfVertices];
+        IntBitSet clique = new IntBitSet(numberOfVertices);
+        double best = 0;
+
+        for(int vertex = 0; vertex < numberOfVertices; ++vertex){
+            degrees[vertex] = graph.degree(vertex);
+        }
+
+        //the degeneracy order removes a vertex of smallest degree at every step
+        DegreeQueue queue = new DegreeQueue(degrees);
+
+        Arrays.fill(position, -1);
+
+        for(int step = 0; step < numberOfVertices; ++step){
+            int vertex = queue.pop();
+
+            order[step] = vertex;
+            position[vertex] = step;
+
+            for(int index = graph.offsets[vertex]; index < graph.offsets[vertex + 1]; ++index){
+                int next = graph.neighbours[index];
+
+                if(position[next] < 0){
+                    degrees[next] --;
+                    queue.push(next);
+                }
+            }
+        }
+
+        Arrays.fill(found, -1);
+        Arrays.fill(mark, -1);
+
+        for(int start : order){
+            int count = 0;
+            int size = 0;
+            boolean inside = found[start] >= 0;
+
+            members[size ++] = start;
+
+            //the later neighbours are the candidates, marked with start
+            for(int index = graph.offsets[start]; index < graph.offsets[start + 1]; ++index){
+                int vertex = graph.neighbours[index];
+
+                if(position[vertex] > position[start]){
+                    candidates[count ++] = vertex;
+                    mark[vertex] = start;
+                    inside &= found[vertex] == found[start];
+                }
+            }
+
+            if(inside){
+                continue;
+            }
+
+            //links counts the neighbours every candidate has among the candidates
+            for(int candidate = 0; candidate < count; ++candidate){
+                links[candidates[candidate]] = 0;
+
+                for(int index = graph.offsets[candidates[candidate]]; index < graph.offsets[candidates[candidate] + 1]; ++index){
+                    if(mark[graph.neighbours[index]] == start){
+                        links[candidates[candidate]] ++;
+                    }
+                }
+            }
+
+            while(count > 0){
+                int chosen = candidates[0];
+
+                //keep the vertex that leaves the most candidates for the next steps
+                for(int candidate = 1; candidate < count; ++candidate){
+                    if(links[candidates[candidate]] > links[chosen]){
+                        chosen = candidates[candidate];
+                    }
+                }
+
+                members[size ++] = chosen;
+
+                //the candidates that miss the chosen vertex are dropped, and their links go with them
+                int kept = 0;
+                int lost = 0;
+
+                for(int candidate = 0; candidate < count; ++candidate){
+                    int vertex = candidates[candidate];
+
+                    if(vertex != chosen && Arrays.binarySearch(graph.neighbours, graph.offsets[chosen], graph.offsets[chosen + 1], vertex) >= 0){
+                        candidates[kept ++] = vertex;
+                    }
+                    else{
+                        dropped[lost ++] = vertex;
+                        mark[vertex] = -1;
+                    }
+                }
+
+                count = kept;
+
+                for(int drop = 0; drop < lost; ++drop){
+                    for(int index = graph.offsets[dropped[drop]]; index < graph.offsets[dropped[drop] + 1]; ++index){
+                        if(mark[graph.neighbours[index]] == start){
+                            links[graph.neighbours[index]] --;
+                        }
+                    }
+                }
+            }
+
+            for(int member = 0; member < size; ++member){
+                found[members[member]] = start;
+            }
+
+            best = Math.max(best, packing(hypergraph, members, size, clique));
+        }
+
+        return best;
+    }
+
+    //vertices is a work set, empty before and after
+    private static double packing(CompactHypergraph<?> hypergraph, int[] members, int size, IntBitSet vertices){
+        double total = 0;
+
+        for(int member = 0; member < size; ++member){
+            vertices.add(members[member]);
+        }
+
+        for(int member = 0; member < size; ++member){
+            int largest = 1;
+
+            for(int incidence = hypergraph.vertexOffsets[members[member]]; incidence < hypergraph.vertexOffsets[members[member] + 1]; ++incidence){
+                largest = Math.max(largest, hypergraph.edgeMeets(hypergraph.vertexEdges[incidence], vertices));
+            }
+
+            total += 1.0 / largest;
+        }
+
+        for(int member = 0; member < size; ++member){
+            vertices.remove(members[member]);
+        }
+
+        return total;
+    }
+}